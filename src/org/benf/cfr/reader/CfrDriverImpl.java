@@ -8,15 +8,19 @@ import org.benf.cfr.reader.state.ClassFileSourceImpl;
 import org.benf.cfr.reader.state.ClassFileSourceWrapper;
 import org.benf.cfr.reader.state.DCCommonState;
 import org.benf.cfr.reader.util.AnalysisType;
+import org.benf.cfr.reader.util.collections.ListFactory;
 import org.benf.cfr.reader.util.getopt.Options;
 import org.benf.cfr.reader.util.getopt.OptionsImpl;
 import org.benf.cfr.reader.util.output.DumperFactory;
 import org.benf.cfr.reader.util.output.InternalDumperFactoryImpl;
 import org.benf.cfr.reader.util.output.SinkDumperFactory;
+import org.benf.cfr.reader.util.output.SourceJarDumperFactory;
+import org.benf.cfr.reader.util.output.SourceJarWriter;
 
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
+import java.util.concurrent.FutureTask;
 
 public class CfrDriverImpl implements CfrDriver {
     private final Options options;
@@ -46,26 +50,59 @@ public class CfrDriverImpl implements CfrDriver {
         boolean skipInnerClass = toAnalyse.size() > 1 && options.getOption(OptionsImpl.SKIP_BATCH_INNER_CLASSES);
 
         Collections.sort(toAnalyse);
-        for (String path : toAnalyse) {
-            // TODO : We shouldn't have to discard state here.  But we do, because
-            // it causes test fails.  (used class name table retains useful symbols).
-            classFileSource.informAnalysisRelativePathDetail(null, null);
-            // Note - both of these need to be reset, as they have caches.
-            DCCommonState dcCommonState = new DCCommonState(options, classFileSource);
-            DumperFactory dumperFactory = outputSinkFactory != null ?
-                    new SinkDumperFactory(outputSinkFactory, options) :
-                    new InternalDumperFactoryImpl(options);
+        // A sources jar collects everything from this run - it's written at the end.
+        SourceJarWriter sourceJar = outputSinkFactory == null ? SourceJarWriter.create(options) : null;
+        try {
+            for (String path : toAnalyse) {
+                if (Thread.currentThread().isInterrupted()) break;
+                // TODO : We shouldn't have to discard state here.  But we do, because
+                // it causes test fails.  (used class name table retains useful symbols).
+                classFileSource.informAnalysisRelativePathDetail(null, null);
+                // Note - both of these need to be reset, as they have caches.
+                DCCommonState dcCommonState = new DCCommonState(options, classFileSource);
+                DumperFactory dumperFactory;
+                if (outputSinkFactory != null) {
+                    dumperFactory = new SinkDumperFactory(outputSinkFactory, options);
+                } else if (sourceJar != null) {
+                    dumperFactory = new SourceJarDumperFactory(sourceJar, options);
+                } else {
+                    dumperFactory = new InternalDumperFactoryImpl(options);
+                }
 
-            AnalysisType type = options.getOption(OptionsImpl.ANALYSE_AS);
-            if (type == null || type == AnalysisType.DETECT) {
-                type = dcCommonState.detectClsJar(path);
-            }
+                AnalysisType type = options.getOption(OptionsImpl.ANALYSE_AS);
+                if (type == null || type == AnalysisType.DETECT) {
+                    type = dcCommonState.detectClsJar(path);
+                }
 
-            if (type == AnalysisType.JAR || type == AnalysisType.WAR) {
-                Driver.doJar(dcCommonState, path, type, dumperFactory);
-            } else if (type == AnalysisType.CLASS) {
-                Driver.doClass(dcCommonState, path, skipInnerClass, dumperFactory);
+                if (type == AnalysisType.JAR || type == AnalysisType.WAR) {
+                    Driver.doJar(dcCommonState, path, type, dumperFactory);
+                } else if (type == AnalysisType.CLASS) {
+                    Driver.doClass(dcCommonState, path, skipInnerClass, dumperFactory);
+                }
             }
+        } finally {
+            if (sourceJar != null) sourceJar.close();
         }
     }
+
+    @Override
+    public DecompiledStream analyseAsync(final List<String> toAnalyse, int maxPending) {
+        final DecompiledQueue queue = new DecompiledQueue(outputSinkFactory, maxPending);
+        final CfrDriverImpl queueDriver = new CfrDriverImpl(classFileSource, queue, options);
+        FutureTask<Void> task = new FutureTask<Void>(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    queueDriver.analyse(ListFactory.newList(toAnalyse));
+                } finally {
+                    queue.finish();
+                }
+            }
+        }, null);
+        queue.setCompletion(task);
+        Thread thread = new Thread(task, "CFR async analysis");
+        thread.setDaemon(true);
+        thread.start();
+        return queue;
+    }
 }
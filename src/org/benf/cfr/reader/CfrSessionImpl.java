@@ -0,0 +1,128 @@
+package org.benf.cfr.reader;
+
+import org.benf.cfr.reader.api.CfrSession;
+import org.benf.cfr.reader.api.ClassFileSource;
+import org.benf.cfr.reader.api.OutputSinkFactory;
+import org.benf.cfr.reader.state.ClassFileSourceImpl;
+import org.benf.cfr.reader.util.collections.ListFactory;
+import org.benf.cfr.reader.util.collections.MapFactory;
+import org.benf.cfr.reader.util.getopt.Options;
+import org.benf.cfr.reader.util.getopt.OptionsImpl;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * Note that we don't retain parsed class files between requests - analysis mutates them, and they're
+ * tied to the common state they were loaded in.  What's expensive and safe to keep is the class path index,
+ * and the jar content (with attribute decoding deferred, parsing from bytes is cheap in comparison).
+ */
+public class CfrSessionImpl implements CfrSession {
+    private final CfrDriverImpl driver;
+    // Null if we've been given an external source - in which case, caching is its business.
+    private final ClassFileSourceImpl internalSource;
+    private final Map<String, Long> jarModificationTimes = MapFactory.newMap();
+    private long requestCount;
+    private boolean cold = true;
+    private RequestMetrics lastRequestMetrics;
+
+    public CfrSessionImpl(ClassFileSource source, OutputSinkFactory outputSinkFactory, Options options) {
+        if (options == null) {
+            options = new OptionsImpl(new HashMap<String, String>());
+        }
+        if (source == null) {
+            internalSource = new ClassFileSourceImpl(options);
+            internalSource.retainJarContent();
+            source = internalSource;
+        } else {
+            internalSource = null;
+        }
+        this.driver = new CfrDriverImpl(source, outputSinkFactory, options);
+    }
+
+    @Override
+    public synchronized RequestMetrics analyse(String toAnalyse) {
+        checkModified(toAnalyse);
+        long start = System.nanoTime();
+        List<String> paths = ListFactory.newList();
+        paths.add(toAnalyse);
+        driver.analyse(paths);
+        lastRequestMetrics = new Metrics(toAnalyse, ++requestCount, System.nanoTime() - start, cold);
+        cold = false;
+        return lastRequestMetrics;
+    }
+
+    private void checkModified(String path) {
+        String lcPath = path.toLowerCase();
+        if (!(lcPath.endsWith(".jar") || lcPath.endsWith(".war"))) return;
+        File file = new File(path);
+        long modified = file.lastModified();
+        Long previous = jarModificationTimes.put(file.getAbsolutePath(), modified);
+        if (previous != null && previous != modified) {
+            invalidate(path);
+        }
+    }
+
+    @Override
+    public synchronized void invalidate(String jarPath) {
+        if (internalSource != null) {
+            internalSource.invalidate(jarPath);
+        }
+        cold = true;
+    }
+
+    @Override
+    public synchronized void invalidateAll() {
+        if (internalSource != null) {
+            internalSource.invalidateAll();
+        }
+        jarModificationTimes.clear();
+        cold = true;
+    }
+
+    @Override
+    public synchronized RequestMetrics getLastRequestMetrics() {
+        return lastRequestMetrics;
+    }
+
+    private static class Metrics implements RequestMetrics {
+        private final String path;
+        private final long requestNumber;
+        private final long elapsedNanos;
+        private final boolean cold;
+
+        private Metrics(String path, long requestNumber, long elapsedNanos, boolean cold) {
+            this.path = path;
+            this.requestNumber = requestNumber;
+            this.elapsedNanos = elapsedNanos;
+            this.cold = cold;
+        }
+
+        @Override
+        public String getPath() {
+            return path;
+        }
+
+        @Override
+        public long getRequestNumber() {
+            return requestNumber;
+        }
+
+        @Override
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        @Override
+        public boolean isCold() {
+            return cold;
+        }
+
+        @Override
+        public String toString() {
+            return path + " #" + requestNumber + " " + (elapsedNanos / 1000000) + "ms" + (cold ? " (cold)" : "");
+        }
+    }
+}
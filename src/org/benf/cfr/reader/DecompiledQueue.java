@@ -0,0 +1,104 @@
+package org.benf.cfr.reader;
+
+import org.benf.cfr.reader.api.CfrDriver;
+import org.benf.cfr.reader.api.OutputSinkFactory;
+import org.benf.cfr.reader.api.SinkReturns;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Sink for asynchronous analysis - java output is queued for the consumer, everything else goes wherever
+ * it would have gone.
+ *
+ * The queue is bounded, so a slow consumer holds up analysis rather than us buffering a whole jar's output.
+ */
+class DecompiledQueue implements OutputSinkFactory, CfrDriver.DecompiledStream {
+    private static final long POLL_MS = 50;
+
+    private final OutputSinkFactory delegate;
+    private final BlockingQueue<SinkReturns.DecompiledMultiVer> queue;
+    private Future<Void> completion;
+    private volatile boolean finished = false;
+
+    DecompiledQueue(OutputSinkFactory delegate, int maxPending) {
+        this.delegate = delegate;
+        this.queue = new ArrayBlockingQueue<SinkReturns.DecompiledMultiVer>(Math.max(1, maxPending));
+    }
+
+    void setCompletion(Future<Void> completion) {
+        this.completion = completion;
+    }
+
+    void finish() {
+        finished = true;
+    }
+
+    @Override
+    public List<SinkClass> getSupportedSinks(SinkType sinkType, Collection<SinkClass> available) {
+        if (sinkType == SinkType.JAVA) {
+            return Collections.singletonList(SinkClass.DECOMPILED_MULTIVER);
+        }
+        if (delegate != null) {
+            return delegate.getSupportedSinks(sinkType, available);
+        }
+        return Collections.singletonList(SinkClass.STRING);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public <T> Sink<T> getSink(final SinkType sinkType, SinkClass sinkClass) {
+        if (sinkType == SinkType.JAVA) {
+            return (Sink<T>) new Sink<SinkReturns.DecompiledMultiVer>() {
+                @Override
+                public void write(SinkReturns.DecompiledMultiVer sinkable) {
+                    try {
+                        queue.put(sinkable);
+                    } catch (InterruptedException e) {
+                        // We've been cancelled - drop it, and leave the flag for the driver to see.
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            };
+        }
+        if (delegate != null) {
+            return delegate.getSink(sinkType, sinkClass);
+        }
+        return new Sink<T>() {
+            @Override
+            public void write(T sinkable) {
+                // Without a configured sink, only failures are worth mentioning.
+                if (sinkType == SinkType.EXCEPTION) {
+                    System.err.println(sinkable);
+                }
+            }
+        };
+    }
+
+    @Override
+    public SinkReturns.DecompiledMultiVer take() throws InterruptedException {
+        while (true) {
+            SinkReturns.DecompiledMultiVer res = queue.poll(POLL_MS, TimeUnit.MILLISECONDS);
+            if (res != null) return res;
+            // finished is only set after the last put, so if it's set and we're empty, we're done.
+            // (if we were cancelled before starting, it never will be).
+            if ((finished || completion.isCancelled()) && queue.isEmpty()) return null;
+        }
+    }
+
+    @Override
+    public Future<Void> getCompletion() {
+        return completion;
+    }
+
+    @Override
+    public void cancel() {
+        completion.cancel(true);
+        queue.clear();
+    }
+}
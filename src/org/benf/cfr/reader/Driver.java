@@ -1,5 +1,6 @@
 package org.benf.cfr.reader;
 
+import org.benf.cfr.reader.bytecode.analysis.parse.utils.Pair;
 import org.benf.cfr.reader.bytecode.analysis.types.InnerClassInfo;
 import org.benf.cfr.reader.bytecode.analysis.types.JavaTypeInstance;
 import org.benf.cfr.reader.entities.ClassFile;
@@ -7,15 +8,20 @@ import org.benf.cfr.reader.entities.Method;
 import org.benf.cfr.reader.mapping.MappingFactory;
 import org.benf.cfr.reader.mapping.ObfuscationMapping;
 import org.benf.cfr.reader.relationship.MemberNameResolver;
+import org.benf.cfr.reader.state.AnalysisCounters;
 import org.benf.cfr.reader.state.DCCommonState;
+import org.benf.cfr.reader.state.IncrementalManifest;
+import org.benf.cfr.reader.state.OverloadMethodSetCache;
 import org.benf.cfr.reader.state.TypeUsageCollectingDumper;
 import org.benf.cfr.reader.state.TypeUsageInformation;
 import org.benf.cfr.reader.util.AnalysisType;
 import org.benf.cfr.reader.util.CannotLoadClassException;
+import org.benf.cfr.reader.util.MethodSelector;
 import org.benf.cfr.reader.util.MiscConstants;
 import org.benf.cfr.reader.util.MiscUtils;
 import org.benf.cfr.reader.util.collections.Functional;
 import org.benf.cfr.reader.util.collections.ListFactory;
+import org.benf.cfr.reader.util.collections.MapFactory;
 import org.benf.cfr.reader.util.collections.SetFactory;
 import org.benf.cfr.reader.util.functors.BinaryFunction;
 import org.benf.cfr.reader.util.functors.Predicate;
@@ -24,6 +30,7 @@ import org.benf.cfr.reader.util.getopt.OptionsImpl;
 import org.benf.cfr.reader.util.output.Dumper;
 import org.benf.cfr.reader.util.output.DumperFactory;
 import org.benf.cfr.reader.util.output.ExceptionDumper;
+import org.benf.cfr.reader.util.output.FileDumper;
 import org.benf.cfr.reader.util.output.IllegalIdentifierDump;
 import org.benf.cfr.reader.util.output.NopSummaryDumper;
 import org.benf.cfr.reader.util.output.ProgressDumper;
@@ -56,13 +63,21 @@ class Driver {
         IllegalIdentifierDump illegalIdentifierDump = IllegalIdentifierDump.Factory.get(options);
         Dumper d = new ToStringDumper(); // sentinel dumper.
         ExceptionDumper ed = dumperFactory.getExceptionDumper();
+        ProgressDumper progressDumper = dumperFactory.getProgressDumper();
+        AnalysisCounters counters = dcCommonState.getAnalysisCounters();
+        OverloadMethodSetCache overloadCache = dcCommonState.getOverloadMethodSetCache();
+        long overloadHitsBefore = overloadCache.getHits();
+        long overloadMissesBefore = overloadCache.getMisses();
+        long start = System.nanoTime();
+        JavaTypeInstance analysed = null;
         try {
             SummaryDumper summaryDumper = new NopSummaryDumper();
             ClassFile c = dcCommonState.getClassFileMaybePath(path);
             if (skipInnerClass && c.isInnerClass()) return;
 
             dcCommonState.configureWith(c);
-            dumperFactory.getProgressDumper().analysingType(c.getClassType());
+            analysed = c.getClassType();
+            progressDumper.analysingType(analysed);
 
             // This may seem odd, but we want to make sure we're analysing the version
             // from the cache.  Because we might have been fed a random filename
@@ -75,7 +90,7 @@ class Driver {
                 c.loadInnerClasses(dcCommonState);
             }
             if (options.getOption(OptionsImpl.RENAME_DUP_MEMBERS)) {
-                MemberNameResolver.resolveNames(dcCommonState, ListFactory.newList(dcCommonState.getClassCache().getLoadedTypes()));
+                MemberNameResolver.resolveNames(dcCommonState, ListFactory.newList(dcCommonState.getClassCache().getLoadedTypes()), summaryDumper);
             }
 
             TypeUsageCollectingDumper collectingDumper = new TypeUsageCollectingDumper(options, c);
@@ -103,6 +118,11 @@ class Driver {
             ed.noteException(path, null, e);
         } finally {
             if (d != null) d.close();
+            if (analysed != null) {
+                progressDumper.analysedType(analysed, System.nanoTime() - start, counters.getBytesLoaded(), counters.getFailedMethods(), counters.getRecoveredMethods(),
+                        overloadCache.getHits() - overloadHitsBefore, overloadCache.getMisses() - overloadMissesBefore);
+                progressDumper.analysedPath(path);
+            }
         }
     }
 
@@ -119,20 +139,28 @@ class Driver {
             summaryDumper.notify("Summary for " + path);
             summaryDumper.notify(MiscConstants.CFR_HEADER_BRA + " " + MiscConstants.CFR_VERSION);
             progressDumper.analysingPath(path);
+            IncrementalManifest incremental = IncrementalManifest.create(options);
             Map<Integer, List<JavaTypeInstance>> clstypes = dcCommonState.explicitlyLoadJar(path, analysisType);
             Set<JavaTypeInstance> versionCollisions = getVersionCollisions(clstypes);
             dcCommonState.setCollisions(versionCollisions);
             List<Integer> versionsSeen = ListFactory.newList();
-            
+            Map<Integer, Set<String>> changedGroups = getChangedGroups(clstypes, dcCommonState);
+
             addMissingOuters(clstypes);
-            
+
+            BaseAnalyses baseAnalyses = new BaseAnalyses(clstypes, changedGroups, options.getOption(OptionsImpl.LOMEM));
             for (Map.Entry<Integer, List<JavaTypeInstance>> entry : clstypes.entrySet()) {
                 int forVersion = entry.getKey();
                 versionsSeen.add(forVersion);
                 List<Integer> localVersionsSeen = ListFactory.newList(versionsSeen);
                 List<JavaTypeInstance> types = entry.getValue();
-                doJarVersionTypes(forVersion, localVersionsSeen, dcCommonState, dumperFactory, illegalIdentifierDump, summaryDumper, progressDumper, types);
+                // Only the base version is handled incrementally.
+                doJarVersionTypes(forVersion, localVersionsSeen, dcCommonState, dumperFactory, illegalIdentifierDump, summaryDumper, progressDumper, types, forVersion == 0 ? incremental : null, baseAnalyses);
             }
+            if (incremental != null) {
+                incremental.save();
+            }
+            progressDumper.analysedPath(path);
         } catch (Exception e) {
             dumperFactory.getExceptionDumper().noteException(path, "Exception analysing jar", e);
             if (summaryDumper != null) summaryDumper.notify("Exception analysing jar " + e);
@@ -180,7 +208,81 @@ class Driver {
         return collisions;
     }
 
-    private static void doJarVersionTypes(int forVersion, final List<Integer> versionsSeen, DCCommonState dcCommonState, DumperFactory dumperFactory, IllegalIdentifierDump illegalIdentifierDump, SummaryDumper summaryDumper, ProgressDumper progressDumper, List<JavaTypeInstance> types) {
+    private static String getGroup(JavaTypeInstance type) {
+        String rawName = type.getRawName();
+        int idx = rawName.indexOf(MiscConstants.INNER_CLASS_SEP_CHAR);
+        return idx > 0 ? rawName.substring(0, idx) : rawName;
+    }
+
+    /*
+     * For each later version, the (outer class name) groups in which some class differs from the base version,
+     * in that version or any before it.
+     * This has to be done before we add missing outers, as they're not actually present in the version.
+     */
+    private static Map<Integer, Set<String>> getChangedGroups(Map<Integer, List<JavaTypeInstance>> clstypes, DCCommonState dcCommonState) {
+        Map<Integer, Set<String>> res = MapFactory.newMap();
+        Set<String> changed = SetFactory.newSet();
+        for (Map.Entry<Integer, List<JavaTypeInstance>> entry : clstypes.entrySet()) {
+            int version = entry.getKey();
+            if (version == 0) continue;
+            Set<JavaTypeInstance> duplicates = dcCommonState.getVersionDuplicates(version);
+            for (JavaTypeInstance type : entry.getValue()) {
+                if (!duplicates.contains(type)) changed.add(getGroup(type));
+            }
+            res.put(version, SetFactory.newSet(changed));
+        }
+        return res;
+    }
+
+    /*
+     * Base version analyses which are kept so that they can be dumped again for later versions in which the class
+     * (and everything else it's dumped with) is identical.
+     *
+     * nb: strictly, the version may have different dependencies, which might have changed the result -
+     * eg a different overload becomes visible.  We accept that.
+     *
+     * With lomem, we keep nothing - holding every reusable base class (with code) until the later versions are
+     * done is exactly what lomem is trying to avoid, so those just get analysed again.
+     */
+    private static class BaseAnalyses {
+        private final Map<Integer, Set<JavaTypeInstance>> reusable = MapFactory.newMap();
+        private final Set<JavaTypeInstance> wanted = SetFactory.newSet();
+        private final Map<JavaTypeInstance, Pair<ClassFile, TypeUsageInformation>> kept = MapFactory.newMap();
+
+        private BaseAnalyses(Map<Integer, List<JavaTypeInstance>> clstypes, Map<Integer, Set<String>> changedGroups, boolean lomem) {
+            if (lomem) return;
+            List<JavaTypeInstance> base = clstypes.get(0);
+            if (base == null) return;
+            Set<JavaTypeInstance> inBase = SetFactory.newSet(base);
+            for (Map.Entry<Integer, List<JavaTypeInstance>> entry : clstypes.entrySet()) {
+                Set<String> changed = changedGroups.get(entry.getKey());
+                if (changed == null) continue;
+                Set<JavaTypeInstance> versionReusable = SetFactory.newSet();
+                for (JavaTypeInstance type : entry.getValue()) {
+                    if (inBase.contains(type) && !changed.contains(getGroup(type))) versionReusable.add(type);
+                }
+                if (versionReusable.isEmpty()) continue;
+                reusable.put(entry.getKey(), versionReusable);
+                wanted.addAll(versionReusable);
+            }
+        }
+
+        private boolean wants(JavaTypeInstance type) {
+            return wanted.contains(type);
+        }
+
+        private void keep(JavaTypeInstance type, ClassFile classFile, TypeUsageInformation typeUsageInformation) {
+            kept.put(type, Pair.make(classFile, typeUsageInformation));
+        }
+
+        private Pair<ClassFile, TypeUsageInformation> get(int version, JavaTypeInstance type) {
+            Set<JavaTypeInstance> versionReusable = reusable.get(version);
+            if (versionReusable == null || !versionReusable.contains(type)) return null;
+            return kept.get(type);
+        }
+    }
+
+    private static void doJarVersionTypes(int forVersion, final List<Integer> versionsSeen, DCCommonState dcCommonState, DumperFactory dumperFactory, IllegalIdentifierDump illegalIdentifierDump, SummaryDumper summaryDumper, ProgressDumper progressDumper, List<JavaTypeInstance> types, IncrementalManifest incremental, BaseAnalyses baseAnalyses) {
         Options options = dcCommonState.getOptions();
         final boolean lomem = options.getOption(OptionsImpl.LOMEM);
         final Predicate<String> matcher = MiscUtils.mkRegexFilter(options.getOption(OptionsImpl.JAR_FILTER), true);
@@ -212,27 +314,68 @@ class Driver {
             });
         }
 
+        // ClassFileSourceImpl will already have applied this, but we may have been given another source.
         types = Functional.filter(types, new Predicate<JavaTypeInstance>() {
             @Override
             public boolean test(JavaTypeInstance in) {
                 return matcher.test(in.getRawName());
             }
         });
+        MethodSelector methodSelector = dcCommonState.getMethodSelector();
+        if (methodSelector != null) {
+            types = methodSelector.selectClasses(types);
+        }
         /*
          * If resolving names, we need a first pass...... otherwise foreign referents will
          * not see the renaming, depending on order of class files....
          */
         if (options.getOption(OptionsImpl.RENAME_DUP_MEMBERS) ||
                 options.getOption(OptionsImpl.RENAME_ENUM_MEMBERS)) {
-            MemberNameResolver.resolveNames(dcCommonState, types);
+            MemberNameResolver.resolveNames(dcCommonState, types, summaryDumper);
+        }
+        // Done after name resolution, so that renaming doesn't depend on what's changed.
+        if (incremental != null) {
+            types = incremental.selectChanged(types, dcCommonState, summaryDumper);
         }
         /*
          * If we're working on a case insensitive file system (OH COME ON!) then make sure that
          * we don't have any collisions.
          */
+        int reused = 0;
+        AnalysisCounters counters = dcCommonState.getAnalysisCounters();
+        OverloadMethodSetCache overloadCache = dcCommonState.getOverloadMethodSetCache();
         for (JavaTypeInstance type : types) {
+            // Asynchronous callers may abandon the rest of the jar.
+            if (Thread.currentThread().isInterrupted()) break;
             Dumper d = new ToStringDumper();  // Sentinel dumper.
+            // What this class costs, including loading whatever it needs.
+            long start = System.nanoTime();
+            long bytesBefore = counters.getBytesLoaded();
+            int failedBefore = counters.getFailedMethods();
+            int recoveredBefore = counters.getRecoveredMethods();
+            long overloadHitsBefore = overloadCache.getHits();
+            long overloadMissesBefore = overloadCache.getMisses();
+            JavaTypeInstance analysed = null;
+            JavaTypeInstance rawType = type;
+            boolean failed = false;
             try {
+                Pair<ClassFile, TypeUsageInformation> baseAnalysis = forVersion == 0 ? null : baseAnalyses.get(forVersion, type);
+                if (baseAnalysis != null) {
+                    ClassFile c = baseAnalysis.getFirst();
+                    analysed = type;
+                    if (!silent) {
+                        progressDumper.analysingType(dcCommonState.getObfuscationMapping().get(type));
+                    }
+                    JavaTypeInstance classType = dcCommonState.getObfuscationMapping().get(c.getClassType());
+                    d = dumperFactory.getNewTopLevelDumper(classType, summaryDumper, baseAnalysis.getSecond(), illegalIdentifierDump);
+                    d = dcCommonState.getObfuscationMapping().wrap(d);
+                    c.dump(d);
+                    d.newln();
+                    d.newln();
+                    reused++;
+                    continue;
+                }
+                JavaTypeInstance listType = type;
                 ClassFile c = dcCommonState.getClassFile(type);
                 // Don't explicitly dump inner classes.  But make sure we ask the CLASS if it's
                 // an inner class, rather than using the name, as scala tends to abuse '$'.
@@ -240,6 +383,7 @@ class Driver {
                     d = null;
                     continue;
                 }
+                analysed = type;
                 if (!silent) {
                     type = dcCommonState.getObfuscationMapping().get(type);
                     progressDumper.analysingType(type);
@@ -255,22 +399,42 @@ class Driver {
                 classType = dcCommonState.getObfuscationMapping().get(classType);
                 TypeUsageInformation typeUsageInformation = collectingDumper.getRealTypeUsageInformation();
                 d = dumperFactory.getNewTopLevelDumper(classType, summaryDumper, typeUsageInformation, illegalIdentifierDump);
+                if (incremental != null && d instanceof FileDumper) {
+                    incremental.recordOutput(c.getClassType(), ((FileDumper) d).getFileName());
+                }
                 d = dcCommonState.getObfuscationMapping().wrap(d);
 
                 c.dump(d);
                 d.newln();
                 d.newln();
-                if (lomem) {
+                if (forVersion == 0 && baseAnalyses.wants(listType)) {
+                    baseAnalyses.keep(listType, c, typeUsageInformation);
+                } else if (lomem) {
                     c.releaseCode();
                 }
             } catch (Dumper.CannotCreate e) {
                 throw e;
             } catch (RuntimeException e) {
+                failed = true;
                 d.print(e.toString()).newln().newln().newln();
             } finally {
                 if (d != null) d.close();
+                if (incremental != null && (failed || counters.getFailedMethods() > failedBefore)) {
+                    incremental.recordFailure(rawType);
+                }
+                if (analysed != null) {
+                    progressDumper.analysedType(analysed, System.nanoTime() - start,
+                            counters.getBytesLoaded() - bytesBefore,
+                            counters.getFailedMethods() - failedBefore,
+                            counters.getRecoveredMethods() - recoveredBefore,
+                            overloadCache.getHits() - overloadHitsBefore,
+                            overloadCache.getMisses() - overloadMissesBefore);
+                }
             }
 
         }
+        if (reused > 0) {
+            summaryDumper.notify("Version " + forVersion + " : reused base analysis for " + reused + " identical classes");
+        }
     }
 }
@@ -0,0 +1,395 @@
+package org.benf.cfr.reader;
+
+import org.benf.cfr.reader.api.CfrSession;
+import org.benf.cfr.reader.api.OutputSinkFactory;
+import org.benf.cfr.reader.api.SinkReturns;
+import org.benf.cfr.reader.util.LineJson;
+import org.benf.cfr.reader.util.MiscConstants;
+import org.benf.cfr.reader.util.collections.ListFactory;
+import org.benf.cfr.reader.util.getopt.OptionsImpl;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/*
+ * Long running alternative to Main, so tooling that makes many small requests doesn't pay for JVM startup
+ * (and a cold JIT) every time.
+ *
+ * Requests are one JSON object per line, on stdin, or (with --port) on a loopback socket.
+ *
+ *   {"id":"1", "jar":"/path/to/x.jar", "class":"a.b.C", "options":{"renamedupmembers":"true"}}
+ *
+ * jar is added to the extra class path - omit class to decompile the whole jar.  (or give "path" instead of either,
+ * which is passed as-is, as on the command line.)  {"command":"invalidate", "jar":...} forgets retained jar
+ * content, {"command":"shutdown"} stops the server.
+ *
+ * Responses are one JSON object per line, tagged with the request id - one per message written to any of the
+ * usual output sinks, then a final "done".
+ *
+ * Requests with the same options share a warm CfrSession.  Different sessions may run concurrently on the
+ * worker pool, requests for the same session are serialised.
+ */
+public class Server {
+    private static final int MAX_SESSIONS = 8;
+
+    private final ExecutorService workers;
+    private final Map<String, SessionHolder> sessions;
+    private volatile boolean shutdown = false;
+    private ServerSocket serverSocket;
+
+    private Server(int threads) {
+        this.workers = Executors.newFixedThreadPool(threads);
+        this.sessions = new LinkedHashMap<String, SessionHolder>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, SessionHolder> eldest) {
+                return size() > MAX_SESSIONS;
+            }
+        };
+    }
+
+    public static void main(String[] args) {
+        Integer port = null;
+        int threads = 1;
+        try {
+            for (int x = 0; x < args.length; ++x) {
+                if (args[x].equals("--port") && x + 1 < args.length) {
+                    port = Integer.parseInt(args[++x]);
+                } else if (args[x].equals("--threads") && x + 1 < args.length) {
+                    threads = Integer.parseInt(args[++x]);
+                } else {
+                    throw new IllegalArgumentException("Unknown argument " + args[x]);
+                }
+            }
+            if (threads < 1) throw new IllegalArgumentException("threads must be positive");
+        } catch (Exception e) {
+            System.err.println(MiscConstants.CFR_HEADER_BRA + " " + MiscConstants.CFR_VERSION);
+            System.err.println(e.getMessage());
+            System.err.println("Usage: Server [--port <loopback port>] [--threads <workers>]");
+            System.exit(1);
+            return;
+        }
+
+        Server server = new Server(threads);
+        try {
+            if (port == null) {
+                server.serveStdio();
+            } else {
+                server.serveSocket(port);
+            }
+        } catch (IOException e) {
+            System.err.println("Server failed : " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    private void serveStdio() throws IOException {
+        ResponseWriter out = new ResponseWriter(System.out);
+        List<Future<?>> pending = serve(System.in, out);
+        waitFor(pending);
+        workers.shutdown();
+    }
+
+    private void serveSocket(int port) throws IOException {
+        serverSocket = new ServerSocket(port, 50, InetAddress.getByName("127.0.0.1"));
+        System.err.println("Listening on " + serverSocket.getLocalSocketAddress());
+        while (!shutdown) {
+            final Socket socket;
+            try {
+                socket = serverSocket.accept();
+            } catch (IOException e) {
+                if (shutdown) break;
+                throw e;
+            }
+            Thread connection = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        List<Future<?>> pending = serve(socket.getInputStream(), new ResponseWriter(socket.getOutputStream()));
+                        waitFor(pending);
+                    } catch (IOException ignore) {
+                        // Client went away.
+                    } finally {
+                        try {
+                            socket.close();
+                        } catch (IOException ignore) {
+                        }
+                    }
+                }
+            });
+            connection.setDaemon(true);
+            connection.start();
+        }
+        workers.shutdown();
+    }
+
+    private List<Future<?>> serve(InputStream in, final ResponseWriter out) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, "UTF-8"));
+        List<Future<?>> pending = ListFactory.newList();
+        String line;
+        while (!shutdown && (line = reader.readLine()) != null) {
+            if (line.trim().length() == 0) continue;
+            final Map<String, Object> request;
+            try {
+                request = LineJson.parseObject(line);
+            } catch (IllegalArgumentException e) {
+                out.write(new Response(null, "error").with("message", e.getMessage()));
+                continue;
+            }
+            String command = getString(request, "command");
+            if ("shutdown".equals(command)) {
+                shutdown();
+                out.write(new Response(getString(request, "id"), "done"));
+                break;
+            }
+            if ("invalidate".equals(command)) {
+                // Anything already asked for should see the jar as it was.
+                waitFor(pending);
+                invalidate(request, out);
+                continue;
+            }
+            pending.add(workers.submit(new Runnable() {
+                @Override
+                public void run() {
+                    analyse(request, out);
+                }
+            }));
+        }
+        return pending;
+    }
+
+    private void shutdown() {
+        shutdown = true;
+        if (serverSocket != null) {
+            try {
+                serverSocket.close();
+            } catch (IOException ignore) {
+            }
+        }
+    }
+
+    private static void waitFor(List<Future<?>> pending) {
+        for (Future<?> future : pending) {
+            try {
+                future.get();
+            } catch (Exception ignore) {
+                // analyse reports its own failures.
+            }
+        }
+    }
+
+    private void invalidate(Map<String, Object> request, ResponseWriter out) {
+        String id = getString(request, "id");
+        String jar = getString(request, "jar");
+        List<SessionHolder> holders;
+        synchronized (sessions) {
+            holders = ListFactory.newList(sessions.values());
+        }
+        for (SessionHolder holder : holders) {
+            if (jar == null) {
+                holder.session.invalidateAll();
+            } else {
+                holder.session.invalidate(jar);
+            }
+        }
+        out.write(new Response(id, "done"));
+    }
+
+    private void analyse(Map<String, Object> request, ResponseWriter out) {
+        String id = getString(request, "id");
+        try {
+            Map<String, String> options = new TreeMap<String, String>();
+            Object rawOptions = request.get("options");
+            if (rawOptions instanceof Map) {
+                for (Map.Entry<?, ?> entry : ((Map<?, ?>) rawOptions).entrySet()) {
+                    options.put(String.valueOf(entry.getKey()), entry.getValue() == null ? null : String.valueOf(entry.getValue()));
+                }
+            }
+            String path = getString(request, "path");
+            String jar = getString(request, "jar");
+            String cls = getString(request, "class");
+            if (path == null) {
+                if (jar == null) throw new IllegalArgumentException("Request needs path or jar");
+                if (cls == null) {
+                    path = jar;
+                } else {
+                    String extra = options.get(OptionsImpl.EXTRA_CLASS_PATH.getName());
+                    options.put(OptionsImpl.EXTRA_CLASS_PATH.getName(), extra == null ? jar : jar + File.pathSeparatorChar + extra);
+                    path = cls;
+                }
+            }
+            SessionHolder holder = getSession(options);
+            CfrSession.RequestMetrics metrics;
+            synchronized (holder) {
+                holder.sinkFactory.begin(id, out);
+                try {
+                    metrics = holder.session.analyse(path);
+                } finally {
+                    holder.sinkFactory.end();
+                }
+            }
+            out.write(new Response(id, "done")
+                    .with("elapsedMs", metrics.getElapsedNanos() / 1000000)
+                    .with("cold", metrics.isCold()));
+        } catch (Exception e) {
+            out.write(new Response(id, "error").with("message", e.toString()));
+        }
+    }
+
+    private SessionHolder getSession(Map<String, String> options) {
+        // options is sorted, so equivalent requests share a key.
+        String key = options.toString();
+        synchronized (sessions) {
+            SessionHolder holder = sessions.get(key);
+            if (holder == null) {
+                holder = new SessionHolder(options);
+                sessions.put(key, holder);
+            }
+            return holder;
+        }
+    }
+
+    private static String getString(Map<String, Object> request, String key) {
+        Object res = request.get(key);
+        return res instanceof String ? (String) res : null;
+    }
+
+    private static class SessionHolder {
+        private final RequestSinkFactory sinkFactory = new RequestSinkFactory();
+        private final CfrSession session;
+
+        private SessionHolder(Map<String, String> options) {
+            this.session = new CfrSession.Builder().withOptions(options).withOutputSink(sinkFactory).build();
+        }
+    }
+
+    /*
+     * Each session has one of these - it's pointed at the request currently being served.
+     */
+    private static class RequestSinkFactory implements OutputSinkFactory {
+        private String id;
+        private ResponseWriter out;
+
+        void begin(String id, ResponseWriter out) {
+            this.id = id;
+            this.out = out;
+        }
+
+        void end() {
+            this.id = null;
+            this.out = null;
+        }
+
+        @Override
+        public List<SinkClass> getSupportedSinks(SinkType sinkType, Collection<SinkClass> available) {
+            switch (sinkType) {
+                case JAVA:
+                    if (available.contains(SinkClass.DECOMPILED)) return Collections.singletonList(SinkClass.DECOMPILED);
+                    break;
+                case EXCEPTION:
+                    if (available.contains(SinkClass.EXCEPTION_MESSAGE)) return Collections.singletonList(SinkClass.EXCEPTION_MESSAGE);
+                    break;
+            }
+            return Collections.singletonList(SinkClass.STRING);
+        }
+
+        @Override
+        public <T> Sink<T> getSink(final SinkType sinkType, final SinkClass sinkClass) {
+            return new Sink<T>() {
+                @Override
+                public void write(T sinkable) {
+                    Response response = new Response(id, sinkType.name().toLowerCase());
+                    switch (sinkClass) {
+                        case DECOMPILED: {
+                            SinkReturns.Decompiled decompiled = (SinkReturns.Decompiled) sinkable;
+                            response.with("package", decompiled.getPackageName())
+                                    .with("class", decompiled.getClassName())
+                                    .with("text", decompiled.getJava());
+                            break;
+                        }
+                        case EXCEPTION_MESSAGE: {
+                            SinkReturns.ExceptionMessage message = (SinkReturns.ExceptionMessage) sinkable;
+                            response.with("path", message.getPath())
+                                    .with("text", message.getMessage() + " : " + message.getThrownException());
+                            break;
+                        }
+                        default:
+                            response.with("text", String.valueOf(sinkable));
+                            break;
+                    }
+                    out.write(response);
+                }
+            };
+        }
+    }
+
+    private static class Response {
+        private final StringBuilder sb = new StringBuilder();
+
+        private Response(String id, String type) {
+            sb.append("{\"id\":");
+            LineJson.quote(sb, id);
+            sb.append(",\"type\":");
+            LineJson.quote(sb, type);
+        }
+
+        Response with(String key, String value) {
+            sb.append(',');
+            LineJson.quote(sb, key).append(':');
+            LineJson.quote(sb, value);
+            return this;
+        }
+
+        Response with(String key, long value) {
+            sb.append(',');
+            LineJson.quote(sb, key).append(':').append(value);
+            return this;
+        }
+
+        Response with(String key, boolean value) {
+            sb.append(',');
+            LineJson.quote(sb, key).append(':').append(value);
+            return this;
+        }
+
+        @Override
+        public String toString() {
+            return sb.toString() + "}";
+        }
+    }
+
+    private static class ResponseWriter {
+        private final Writer writer;
+
+        private ResponseWriter(OutputStream out) throws IOException {
+            this.writer = new OutputStreamWriter(out, "UTF-8");
+        }
+
+        synchronized void write(Response response) {
+            try {
+                writer.write(response.toString());
+                writer.write('\n');
+                writer.flush();
+            } catch (IOException ignore) {
+                // Client's gone - nothing to tell.
+            }
+        }
+    }
+}
@@ -6,6 +6,7 @@ import org.benf.cfr.reader.util.getopt.OptionsImpl;
 
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Future;
 
 /**
  * Main driver for CFR API.   Instance of this driver should be constructed by using
@@ -20,6 +21,42 @@ public interface CfrDriver {
      */
     void analyse(List<String> toAnalyse);
 
+    /**
+     * Analyse on a background thread, handing back decompiled classes as they complete.
+     *
+     * Java output goes to the returned stream rather than the configured output sink (other output
+     * is still sent to the configured sink, if any).  If the consumer falls behind by more than
+     * maxPending classes, analysis waits for it.
+     *
+     * @param toAnalyse list of class file FQN / path of jar / path of class file
+     * @param maxPending maximum number of decompiled classes held waiting for the consumer.
+     * @return stream of decompiled classes.
+     */
+    DecompiledStream analyseAsync(List<String> toAnalyse, int maxPending);
+
+    /**
+     * Results of {@link #analyseAsync(List, int)}.
+     */
+    interface DecompiledStream {
+        /**
+         * Blocks until the next class is available.
+         *
+         * @return next decompiled class, or null once analysis has finished and everything has been taken.
+         * @throws InterruptedException if interrupted while waiting.
+         */
+        SinkReturns.DecompiledMultiVer take() throws InterruptedException;
+
+        /**
+         * @return future which completes when analysis does.  (whether or not everything has been taken).
+         */
+        Future<Void> getCompletion();
+
+        /**
+         * Abandon analysis - remaining classes will not be analysed, and anything pending is discarded.
+         */
+        void cancel();
+    }
+
     /**
      * Builder for {@link CfrDriver}
      *
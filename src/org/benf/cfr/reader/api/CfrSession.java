@@ -0,0 +1,129 @@
+package org.benf.cfr.reader.api;
+
+import org.benf.cfr.reader.CfrSessionImpl;
+import org.benf.cfr.reader.util.getopt.Options;
+import org.benf.cfr.reader.util.getopt.OptionsImpl;
+
+import java.util.Map;
+
+/**
+ * Long lived alternative to {@link CfrDriver}, for clients (eg code browsers) which make many small
+ * requests against the same jars.
+ *
+ * Class path indexes and the content of jars read are retained between requests, so each request
+ * pays only for the classes it actually analyses.  If a jar changes, call {@link #invalidate(String)}.
+ * (explicitly analysed jars are also checked for modification before each request).
+ *
+ * Retained jar content is bounded by the {@code retainedcontentbudget} option.
+ *
+ * Instances should be constructed by using {@link Builder}.  A session may be shared between threads, but
+ * requests are serialised - only one runs at a time.
+ */
+@SuppressWarnings("unused")
+public interface CfrSession {
+    /**
+     * Analyse and dump to configured output sink.
+     *
+     * @param toAnalyse class file FQN / path of jar / path of class file
+     * @return timing information for this request.
+     */
+    RequestMetrics analyse(String toAnalyse);
+
+    /**
+     * Forget anything retained about the given jar.
+     *
+     * @param jarPath path of jar which has changed.
+     */
+    void invalidate(String jarPath);
+
+    /**
+     * Forget everything retained - the class path will be scanned again on next request.
+     */
+    void invalidateAll();
+
+    /**
+     * @return timing information for the most recent request, or null if there hasn't been one.
+     */
+    RequestMetrics getLastRequestMetrics();
+
+    /**
+     * Timing information for a single request.
+     */
+    interface RequestMetrics {
+        /**
+         * @return what was requested.
+         */
+        String getPath();
+
+        /**
+         * @return 1 for the first request made of this session, etc.
+         */
+        long getRequestNumber();
+
+        /**
+         * @return wall clock time spent servicing this request.
+         */
+        long getElapsedNanos();
+
+        /**
+         * @return true if retained state was discarded (explicitly or because a jar changed) before this request.
+         */
+        boolean isCold();
+    }
+
+    /**
+     * Builder for {@link CfrSession} - see {@link CfrDriver.Builder}, all parameters are optional.
+     */
+    class Builder {
+        ClassFileSource source = null;
+        Options builtOptions = null;
+        OutputSinkFactory output = null;
+
+        /**
+         * Overrides where CFR searches for bytecode.
+         * Note that if you provide a source, CFR will not retain jar content for you.
+         *
+         * @param source class file source.
+         * @return this builder.
+         */
+        public Builder withClassFileSource(ClassFileSource source) {
+            this.source = source;
+            return this;
+        }
+
+        /**
+         * @param output see {@link OutputSinkFactory}
+         * @return this builder.
+         */
+        public Builder withOutputSink(OutputSinkFactory output) {
+            this.output = output;
+            return this;
+        }
+
+        /**
+         * @param options map of options, see {@link CfrDriver.Builder#withOptions(Map)}
+         * @return this builder.
+         */
+        public Builder withOptions(Map<String, String> options) {
+            this.builtOptions = OptionsImpl.getFactory().create(options);
+            return this;
+        }
+
+        /**
+         * Note - the {@code Options} interface is *not* guaranteed to be stable.
+         * @param options previously built options.
+         * @return this builder.
+         */
+        public Builder withBuiltOptions(Options options) {
+            this.builtOptions = options;
+            return this;
+        }
+
+        /**
+         * @return Constructed instance of {@link CfrSession}
+         */
+        public CfrSession build() {
+            return new CfrSessionImpl(source, output, builtOptions);
+        }
+    }
+}
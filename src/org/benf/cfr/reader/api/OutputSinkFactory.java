@@ -29,7 +29,9 @@ public interface OutputSinkFactory {
          *
          * Note that these tokens may be reused, and should not be cached.
          */
-        TOKEN_STREAM(SinkReturns.Token.class);
+        TOKEN_STREAM(SinkReturns.Token.class),
+        /** Sinks will accept {@link org.benf.cfr.reader.api.SinkReturns.ProgressMetrics} */
+        PROGRESS_METRICS(SinkReturns.ProgressMetrics.class);
 
         /**
          * Get the type of message that the sink will be expected to take.
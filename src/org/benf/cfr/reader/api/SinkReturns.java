@@ -1,5 +1,6 @@
 package org.benf.cfr.reader.api;
 
+import java.util.List;
 import java.util.Set;
 
 /**
@@ -63,6 +64,62 @@ public interface SinkReturns {
         int getRuntimeFrom();
     }
 
+    /**
+     * Periodic report of throughput, for the PROGRESS sink.  Figures are since the start of the current path.
+     */
+    interface ProgressMetrics {
+        /**
+         * @return the jar (or class) being analysed.
+         */
+        String getPath();
+
+        /**
+         * @return top level classes analysed so far.
+         */
+        int getClassesAnalysed();
+
+        long getElapsedMillis();
+
+        double getClassesPerSecond();
+
+        /**
+         * @return class file bytes loaded per second (including dependencies loaded to support analysis).
+         */
+        double getBytesPerSecond();
+
+        /**
+         * @return methods which could not be decompiled.
+         */
+        int getFailedMethods();
+
+        /**
+         * @return methods which only decompiled after falling back to a recovery pass.
+         */
+        int getRecoveredMethods();
+
+        /**
+         * @return lookups of the (bounded) overload method set cache which found / didn't find an entry.
+         */
+        long getOverloadCacheHits();
+
+        long getOverloadCacheMisses();
+
+        /**
+         * @return the slowest classes so far, slowest first, as "name (n ms)".
+         */
+        List<String> getSlowestClasses();
+
+        /**
+         * @return the highest heap usage seen at the end of a class.
+         */
+        long getHeapHighWaterBytes();
+
+        /**
+         * @return true if this is the report for the end of the path.
+         */
+        boolean isFinal();
+    }
+
     enum TokenTypeFlags {
         DEFINES
     }
@@ -0,0 +1,213 @@
+package org.benf.cfr.reader.bytecode;
+
+import org.benf.cfr.reader.bytecode.analysis.opgraph.Op01WithProcessedDataAndByteJumps;
+import org.benf.cfr.reader.bytecode.analysis.opgraph.Op04StructuredStatement;
+import org.benf.cfr.reader.bytecode.analysis.structured.statement.StructuredBytecodeDump;
+import org.benf.cfr.reader.bytecode.opcode.DecodedLookupSwitch;
+import org.benf.cfr.reader.bytecode.opcode.DecodedSwitch;
+import org.benf.cfr.reader.bytecode.opcode.DecodedSwitchEntry;
+import org.benf.cfr.reader.bytecode.opcode.DecodedTableSwitch;
+import org.benf.cfr.reader.bytecode.opcode.JVMInstr;
+import org.benf.cfr.reader.entities.constantpool.ConstantPoolEntry;
+import org.benf.cfr.reader.entities.constantpool.ConstantPoolEntryClass;
+import org.benf.cfr.reader.entities.constantpool.ConstantPoolEntryDouble;
+import org.benf.cfr.reader.entities.constantpool.ConstantPoolEntryDynamicInfo;
+import org.benf.cfr.reader.entities.constantpool.ConstantPoolEntryFieldRef;
+import org.benf.cfr.reader.entities.constantpool.ConstantPoolEntryFloat;
+import org.benf.cfr.reader.entities.constantpool.ConstantPoolEntryInteger;
+import org.benf.cfr.reader.entities.constantpool.ConstantPoolEntryInvokeDynamic;
+import org.benf.cfr.reader.entities.constantpool.ConstantPoolEntryLong;
+import org.benf.cfr.reader.entities.constantpool.ConstantPoolEntryMethodHandle;
+import org.benf.cfr.reader.entities.constantpool.ConstantPoolEntryMethodRef;
+import org.benf.cfr.reader.entities.constantpool.ConstantPoolEntryMethodType;
+import org.benf.cfr.reader.entities.constantpool.ConstantPoolEntryNameAndType;
+import org.benf.cfr.reader.entities.constantpool.ConstantPoolEntryString;
+import org.benf.cfr.reader.util.DecompilerComment;
+import org.benf.cfr.reader.util.DecompilerComments;
+import org.benf.cfr.reader.util.collections.ListFactory;
+import org.benf.cfr.reader.util.collections.MapFactory;
+
+import java.util.List;
+import java.util.Map;
+
+/*
+ * What we give back when we've run out of analysis budget - this is cheap, as we've already got the instructions.
+ */
+public class AnalysisResultBytecodeDump implements AnalysisResult {
+    private final Op04StructuredStatement code;
+    private final DecompilerComments comments;
+
+    AnalysisResultBytecodeDump(List<Op01WithProcessedDataAndByteJumps> instrs, String reason) {
+        List<String> lines = ListFactory.newList();
+        for (Op01WithProcessedDataAndByteJumps instr : instrs) {
+            int offset = instr.getOriginalRawOffset();
+            // Skip the sentinel nop.
+            if (offset < 0) continue;
+            StringBuilder sb = new StringBuilder();
+            sb.append(offset).append(": ").append(instr.getJVMInstr().getName());
+            describeOperands(instr, offset, sb);
+            lines.add(sb.toString());
+        }
+        this.code = new Op04StructuredStatement(new StructuredBytecodeDump(reason, lines));
+        this.comments = new DecompilerComments();
+        comments.addComment(new DecompilerComment("Gave up - " + reason, true));
+    }
+
+    /*
+     * Roughly what javap would show - resolved constant pool references, and real jump targets.
+     */
+    private static void describeOperands(Op01WithProcessedDataAndByteJumps instr, int offset, StringBuilder sb) {
+        JVMInstr jvmInstr = instr.getJVMInstr();
+        byte[] data = instr.getData();
+        int[] targets = instr.getRawTargetOffsets();
+        switch (jvmInstr) {
+            case TABLESWITCH:
+                describeSwitch(new DecodedTableSwitch(data, offset), targets, offset, sb);
+                return;
+            case LOOKUPSWITCH:
+                describeSwitch(new DecodedLookupSwitch(data, offset), targets, offset, sb);
+                return;
+            case BIPUSH:
+                sb.append(' ').append(data[0]);
+                return;
+            case SIPUSH:
+                sb.append(' ').append((short) u2(data, 0));
+                return;
+            case RET:
+                sb.append(' ').append(data[0] & 0xff);
+                return;
+            case IINC:
+                sb.append(' ').append(data[0] & 0xff).append(' ').append(data[1]);
+                return;
+            // The wide forms still have the opcode they're widening at the start.
+            case IINC_WIDE:
+                sb.append(' ').append(u2(data, 1)).append(' ').append((short) u2(data, 3));
+                return;
+            case ALOAD_WIDE:
+            case ASTORE_WIDE:
+            case DLOAD_WIDE:
+            case DSTORE_WIDE:
+            case FLOAD_WIDE:
+            case FSTORE_WIDE:
+            case ILOAD_WIDE:
+            case ISTORE_WIDE:
+            case LLOAD_WIDE:
+            case LSTORE_WIDE:
+            case RET_WIDE:
+                sb.append(' ').append(u2(data, 1));
+                return;
+        }
+        if (targets != null) {
+            // Only conditional jumps have two targets - the first is just falling through.
+            for (int x = targets.length == 2 ? 1 : 0; x < targets.length; ++x) {
+                sb.append(" -> ").append(offset + targets[x]);
+            }
+            return;
+        }
+        ConstantPoolEntry[] cpEntries = instr.getConstantPoolEntries();
+        if (cpEntries != null && cpEntries.length > 0) {
+            sb.append(' ').append(describe(cpEntries[0]));
+            if (jvmInstr == JVMInstr.MULTIANEWARRAY) {
+                sb.append(' ').append(data[2] & 0xff);
+            }
+            return;
+        }
+        if (data != null) {
+            for (byte b : data) {
+                sb.append(' ').append(b & 0xff);
+            }
+        }
+    }
+
+    private static int u2(byte[] data, int pos) {
+        return ((data[pos] & 0xff) << 8) | (data[pos + 1] & 0xff);
+    }
+
+    /*
+     * Keys in order, then the default.  The raw targets are in the same order as the decoded entries.
+     */
+    private static void describeSwitch(DecodedSwitch decoded, int[] targets, int offset, StringBuilder sb) {
+        List<DecodedSwitchEntry> entries = decoded.getJumpTargets();
+        Map<Integer, Integer> byKey = MapFactory.newTreeMap();
+        int defaultTarget = -1;
+        for (int x = 0; x < entries.size(); ++x) {
+            int target = offset + targets[x];
+            for (Integer key : entries.get(x).getValue()) {
+                if (key == null) {
+                    defaultTarget = target;
+                } else {
+                    byKey.put(key, target);
+                }
+            }
+        }
+        sb.append(" {");
+        for (Map.Entry<Integer, Integer> entry : byKey.entrySet()) {
+            sb.append(' ').append(entry.getKey()).append(": ").append(entry.getValue()).append(',');
+        }
+        sb.append(" default: ").append(defaultTarget).append(" }");
+    }
+
+    private static String describe(ConstantPoolEntry entry) {
+        if (entry instanceof ConstantPoolEntryClass) {
+            String path = ((ConstantPoolEntryClass) entry).getFilePath();
+            return path.substring(0, path.length() - ".class".length());
+        } else if (entry instanceof ConstantPoolEntryMethodRef) {
+            ConstantPoolEntryMethodRef methodRef = (ConstantPoolEntryMethodRef) entry;
+            return describe(methodRef.getClassEntry()) + "." + describe(methodRef.getNameAndTypeEntry());
+        } else if (entry instanceof ConstantPoolEntryFieldRef) {
+            ConstantPoolEntryFieldRef fieldRef = (ConstantPoolEntryFieldRef) entry;
+            return describe(fieldRef.getClassEntry()) + "." + describe(fieldRef.getNameAndTypeEntry());
+        } else if (entry instanceof ConstantPoolEntryNameAndType) {
+            ConstantPoolEntryNameAndType nameAndType = (ConstantPoolEntryNameAndType) entry;
+            return nameAndType.getName().getValue() + ":" + nameAndType.getDescriptor().getValue();
+        } else if (entry instanceof ConstantPoolEntryInvokeDynamic) {
+            ConstantPoolEntryInvokeDynamic invokeDynamic = (ConstantPoolEntryInvokeDynamic) entry;
+            return "#" + invokeDynamic.getBootstrapMethodAttrIndex() + ":" + describe(invokeDynamic.getNameAndTypeEntry());
+        } else if (entry instanceof ConstantPoolEntryDynamicInfo) {
+            ConstantPoolEntryDynamicInfo dynamicInfo = (ConstantPoolEntryDynamicInfo) entry;
+            return "#" + dynamicInfo.getBootstrapMethodAttrIndex() + ":" + describe(dynamicInfo.getNameAndTypeEntry());
+        } else if (entry instanceof ConstantPoolEntryString) {
+            return ((ConstantPoolEntryString) entry).getValue();
+        } else if (entry instanceof ConstantPoolEntryInteger) {
+            return Integer.toString(((ConstantPoolEntryInteger) entry).getValue());
+        } else if (entry instanceof ConstantPoolEntryLong) {
+            return ((ConstantPoolEntryLong) entry).getValue() + "l";
+        } else if (entry instanceof ConstantPoolEntryFloat) {
+            return ((ConstantPoolEntryFloat) entry).getValue() + "f";
+        } else if (entry instanceof ConstantPoolEntryDouble) {
+            return ((ConstantPoolEntryDouble) entry).getValue() + "d";
+        } else if (entry instanceof ConstantPoolEntryMethodType) {
+            return ((ConstantPoolEntryMethodType) entry).getDescriptor().getValue();
+        } else if (entry instanceof ConstantPoolEntryMethodHandle) {
+            ConstantPoolEntryMethodHandle methodHandle = (ConstantPoolEntryMethodHandle) entry;
+            return methodHandle.getReferenceKind() + " " + describe(methodHandle.isFieldRef() ?
+                    methodHandle.getFieldRef() : methodHandle.getMethodRef());
+        }
+        return entry.toString();
+    }
+
+    @Override
+    public boolean isFailed() {
+        return true;
+    }
+
+    @Override
+    public boolean isThrown() {
+        return false;
+    }
+
+    @Override
+    public Op04StructuredStatement getCode() {
+        return code;
+    }
+
+    @Override
+    public DecompilerComments getComments() {
+        return comments;
+    }
+
+    @Override
+    public AnonymousClassUsage getAnonymousClassUsage() {
+        return new AnonymousClassUsage();
+    }
+}
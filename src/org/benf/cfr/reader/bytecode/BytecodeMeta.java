@@ -3,7 +3,12 @@ package org.benf.cfr.reader.bytecode;
 import org.benf.cfr.reader.bytecode.analysis.opgraph.Op01WithProcessedDataAndByteJumps;
 import org.benf.cfr.reader.bytecode.analysis.types.JavaTypeInstance;
 import org.benf.cfr.reader.bytecode.analysis.types.discovery.InferredJavaType;
+import org.benf.cfr.reader.bytecode.opcode.JVMInstr;
 import org.benf.cfr.reader.entities.attributes.AttributeCode;
+import org.benf.cfr.reader.entities.constantpool.ConstantPoolEntry;
+import org.benf.cfr.reader.entities.constantpool.ConstantPoolEntryClass;
+import org.benf.cfr.reader.entities.constantpool.ConstantPoolEntryFieldRef;
+import org.benf.cfr.reader.entities.constantpool.ConstantPoolEntryMethodRef;
 import org.benf.cfr.reader.util.collections.MapFactory;
 import org.benf.cfr.reader.util.collections.SetFactory;
 import org.benf.cfr.reader.util.functors.UnaryFunction;
@@ -27,18 +32,55 @@ public class BytecodeMeta {
         INSTANCE_OF_MATHCES
     }
 
+    private static final int OPCODE_COUNT = JVMInstr.values().length;
+
     private final EnumSet<CodeInfoFlag> flags = EnumSet.noneOf(CodeInfoFlag.class);
 
+    /*
+     * What the code contains / refers to - passes which can't possibly apply can use this to skip themselves.
+     */
+    private final boolean[] opcodesUsed = new boolean[OPCODE_COUNT];
+    private final Set<String> referencedTypes = SetFactory.newSet();
+    private final Set<String> referencedMethodNames = SetFactory.newSet();
+
     private final Set<Integer> livenessClashes = SetFactory.newSet();
+    private final Set<Integer> declaredTypeClashes = SetFactory.newSet();
     private final Map<Integer, JavaTypeInstance> iteratedTypeHints = MapFactory.newMap();
     private final Options options;
 
     public BytecodeMeta(List<Op01WithProcessedDataAndByteJumps> op1s, AttributeCode code, Options options) {
         this.options = options;
-        int flagCount = CodeInfoFlag.values().length;
         if (!code.getExceptionTableEntries().isEmpty()) flags.add(CodeInfoFlag.USES_EXCEPTIONS);
+        addInstrs(op1s);
+    }
+
+    private BytecodeMeta(BytecodeMeta other) {
+        this.options = other.options;
+        flags.addAll(other.flags);
+        System.arraycopy(other.opcodesUsed, 0, opcodesUsed, 0, OPCODE_COUNT);
+        referencedTypes.addAll(other.referencedTypes);
+        referencedMethodNames.addAll(other.referencedMethodNames);
+        livenessClashes.addAll(other.livenessClashes);
+        declaredTypeClashes.addAll(other.declaredTypeClashes);
+        iteratedTypeHints.putAll(other.iteratedTypeHints);
+    }
+
+    /*
+     * Passes write what they learn back into us - a copy lets us replay a pass from where it started.
+     */
+    public BytecodeMeta copy() {
+        return new BytecodeMeta(this);
+    }
+
+    /*
+     * Unverifiable bytecode can cause us to reinterpret code after we've been created - anything found that way
+     * must be added, or we might tell a pass it has nothing to do.
+     */
+    public void addInstrs(List<Op01WithProcessedDataAndByteJumps> op1s) {
         for (Op01WithProcessedDataAndByteJumps op : op1s) {
-            switch (op.getJVMInstr()) {
+            JVMInstr instr = op.getJVMInstr();
+            opcodesUsed[instr.ordinal()] = true;
+            switch (instr) {
                 case MONITOREXIT:
                 case MONITORENTER:
                     flags.add(CodeInfoFlag.USES_MONITORS);
@@ -47,9 +89,38 @@ public class BytecodeMeta {
                     flags.add(CodeInfoFlag.USES_INVOKEDYNAMIC);
                     break;
             }
-            // Don't bother processing any longer if we've found all the flags!
-            if (flags.size() == flagCount) return;
+            ConstantPoolEntry[] cpEntries = op.getConstantPoolEntries();
+            if (cpEntries == null) continue;
+            for (ConstantPoolEntry cpEntry : cpEntries) {
+                if (cpEntry instanceof ConstantPoolEntryMethodRef) {
+                    ConstantPoolEntryMethodRef methodRef = (ConstantPoolEntryMethodRef) cpEntry;
+                    referencedMethodNames.add(methodRef.getName());
+                    referencedTypes.add(methodRef.getClassEntry().getRawClassName());
+                } else if (cpEntry instanceof ConstantPoolEntryFieldRef) {
+                    referencedTypes.add(((ConstantPoolEntryFieldRef) cpEntry).getClassEntry().getRawClassName());
+                } else if (cpEntry instanceof ConstantPoolEntryClass) {
+                    referencedTypes.add(((ConstantPoolEntryClass) cpEntry).getRawClassName());
+                }
+            }
+        }
+    }
+
+    public boolean uses(JVMInstr... instrs) {
+        for (JVMInstr instr : instrs) {
+            if (opcodesUsed[instr.ordinal()]) return true;
         }
+        return false;
+    }
+
+    /*
+     * Raw (dotted) name, as an owner of a method or field, or the subject of new / checkcast / instanceof etc.
+     */
+    public boolean refersToType(String rawName) {
+        return referencedTypes.contains(rawName);
+    }
+
+    public boolean refersToMethod(String name) {
+        return referencedMethodNames.contains(name);
     }
 
     public boolean has(CodeInfoFlag flag) {
@@ -87,6 +158,35 @@ public class BytecodeMeta {
         return livenessClashes;
     }
 
+    /*
+     * Slots which the stack map frames show being shared by variables with different declared types.
+     * Unlike liveness clashes, these come from the class file rather than a failed pass, so there's no reason
+     * to distrust the local variable table's names for them - they only split lifetimes.
+     */
+    public void informDeclaredTypeClashes(Set<Integer> slots) {
+        declaredTypeClashes.addAll(slots);
+    }
+
+    public boolean hasDeclaredTypeClashes() {
+        return !declaredTypeClashes.isEmpty();
+    }
+
+    public BytecodeMeta copyWithoutDeclaredTypeClashes() {
+        BytecodeMeta res = new BytecodeMeta(this);
+        res.declaredTypeClashes.clear();
+        return res;
+    }
+
+    /*
+     * Slots where a store always starts a new lifetime.
+     */
+    public Set<Integer> getLifetimeSplits() {
+        if (declaredTypeClashes.isEmpty()) return livenessClashes;
+        Set<Integer> res = SetFactory.newSet(livenessClashes);
+        res.addAll(declaredTypeClashes);
+        return res;
+    }
+
     private static class FlagTest implements UnaryFunction<BytecodeMeta, Boolean> {
         private final CodeInfoFlag[] flags;
 
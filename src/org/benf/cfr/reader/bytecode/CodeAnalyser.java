@@ -1,5 +1,6 @@
 package org.benf.cfr.reader.bytecode;
 
+import org.benf.cfr.reader.bytecode.analysis.opgraph.InstrOffsetTable;
 import org.benf.cfr.reader.bytecode.analysis.opgraph.Op01WithProcessedDataAndByteJumps;
 import org.benf.cfr.reader.bytecode.analysis.opgraph.Op02WithProcessedDataAndRefs;
 import org.benf.cfr.reader.bytecode.analysis.opgraph.Op03Blocks;
@@ -44,19 +45,26 @@ import org.benf.cfr.reader.bytecode.analysis.parse.rewriters.StringBuilderRewrit
 import org.benf.cfr.reader.bytecode.analysis.parse.rewriters.XorRewriter;
 import org.benf.cfr.reader.bytecode.analysis.parse.utils.BlockIdentifierFactory;
 import org.benf.cfr.reader.bytecode.analysis.structured.statement.StructuredComment;
+import org.benf.cfr.reader.bytecode.analysis.types.TypeConstants;
 import org.benf.cfr.reader.bytecode.analysis.variables.VariableFactory;
 import org.benf.cfr.reader.bytecode.opcode.JVMInstr;
+import org.benf.cfr.reader.entities.AccessFlagMethod;
 import org.benf.cfr.reader.entities.ClassFile;
 import org.benf.cfr.reader.entities.Method;
 import org.benf.cfr.reader.entities.attributes.AttributeCode;
+import org.benf.cfr.reader.entities.attributes.AttributeStackMapTable;
 import org.benf.cfr.reader.entities.constantpool.ConstantPool;
 import org.benf.cfr.reader.entities.exceptions.ExceptionAggregator;
 import org.benf.cfr.reader.entities.exceptions.ExceptionTableEntry;
+import org.benf.cfr.reader.state.AnalysisMemo;
 import org.benf.cfr.reader.state.DCCommonState;
+import org.benf.cfr.reader.util.AnalysisBudget;
 import org.benf.cfr.reader.util.ClassFileVersion;
 import org.benf.cfr.reader.util.ConfusedCFRException;
 import org.benf.cfr.reader.util.DecompilerComment;
 import org.benf.cfr.reader.util.DecompilerComments;
+import org.benf.cfr.reader.util.MethodSelector;
+import org.benf.cfr.reader.util.MiscConstants;
 import org.benf.cfr.reader.util.Troolean;
 import org.benf.cfr.reader.util.UnverifiableJumpException;
 import org.benf.cfr.reader.util.bytestream.ByteData;
@@ -67,11 +75,8 @@ import org.benf.cfr.reader.util.getopt.OptionsImpl;
 import org.benf.cfr.reader.util.output.Dumper;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
-import java.util.SortedMap;
-import java.util.TreeMap;
+import java.util.Set;
 
 public class CodeAnalyser {
     private final AttributeCode originalCodeAttribute;
@@ -80,6 +85,8 @@ public class CodeAnalyser {
     private Method method;
 
     private Op04StructuredStatement analysed;
+    // If we needed a recovery pass, how to get straight back to it (see AnalysisMemo).
+    private AnalysisMemo.Recovery recovery;
     private static final Op04StructuredStatement POISON = new Op04StructuredStatement(new StructuredComment("Analysis utterly failed (Recursive inlining?)"));
 
     public CodeAnalyser(AttributeCode attributeCode) {
@@ -154,10 +161,17 @@ public class CodeAnalyser {
         if (analysed != null) {
             return analysed;
         }
+        MethodSelector methodSelector = dcCommonState.getMethodSelector();
+        if (methodSelector != null && method != null && !methodSelector.needsAnalysis(method)) {
+            // Nobody wants this one - don't pay for it.  (it won't be dumped).
+            analysed = new Op04StructuredStatement(new StructuredComment("Method not selected for analysis"));
+            return analysed;
+        }
         analysed = POISON;
 
         Options options = dcCommonState.getOptions();
         List<Op01WithProcessedDataAndByteJumps> instrs = getInstrs();
+        InstrOffsetTable offsetTable = InstrOffsetTable.build(instrs, originalCodeAttribute.getCodeLength());
 
         AnalysisResult res;
 
@@ -165,24 +179,134 @@ public class CodeAnalyser {
          * Very quick scan to check for presence of certain instructions.
          */
         BytecodeMeta bytecodeMeta = new BytecodeMeta(instrs, originalCodeAttribute, options);
+        if (options.getOption(OptionsImpl.STACK_MAP_HINTS)) {
+            takeStackMapHints(bytecodeMeta);
+        }
+
+        /*
+         * We may have been released (lomem) and then asked again, eg to inline a lambda.
+         */
+        AnalysisMemo.Recovery previous = method == null ? null : dcCommonState.getAnalysisMemo().take(method);
 
+        AnalysisBudget budget = AnalysisBudget.beginMethod(options);
+        try {
+            res = null;
+            if (previous != null) {
+                res = getAnalysisOrWrapFail(previous.getPassIdx(), instrs, offsetTable, dcCommonState, previous.getOptions(), previous.getComments(), previous.getBytecodeMeta());
+                if (res.isFailed()) {
+                    // Shouldn't happen, but if it does, go the long way round.
+                    res = null;
+                } else {
+                    // Already counted as recovered when we first got here - don't count it again.
+                    recovery = previous;
+                }
+            }
+            if (res == null) {
+                res = getAnalysisWithRecovery(instrs, offsetTable, dcCommonState, options, bytecodeMeta);
+            }
+        } catch (AnalysisBudget.Exceeded e) {
+            if (budget == null || !budget.shouldFallBack(e.getBudget())) {
+                // Whoever asked for us has run out - they'll fall back, and we can be tried again later.
+                analysed = null;
+                throw e;
+            }
+            res = new AnalysisResultBytecodeDump(instrs, e.getBudget().describe());
+        } finally {
+            AnalysisBudget.end(budget);
+        }
+
+        if (res.isFailed()) {
+            dcCommonState.getAnalysisCounters().methodFailed();
+        }
+
+        if (res.getComments() != null) {
+            method.setComments(res.getComments());
+        }
+
+        /*
+         * Take the anonymous usages from the selected result.
+         */
+        res.getAnonymousClassUsage().useNotes();
+
+        analysed = res.getCode();
+        return analysed;
+    }
+
+    /*
+     * If the frames tell us a slot is shared by differently typed variables, we can split its lifetimes from
+     * the start, rather than finding out when the first pass clashes, and going round again.
+     *
+     * Frames are only guaranteed to have been verified (so we can only believe them) from 51 on.
+     */
+    private void takeStackMapHints(BytecodeMeta bytecodeMeta) {
+        if (method == null) return;
+        if (!method.getClassFile().getClassFileVersion().equalOrLater(ClassFileVersion.JAVA_7)) return;
+        AttributeStackMapTable stackMapTable = originalCodeAttribute.getStackMapTable();
+        if (stackMapTable == null) return;
+        Set<Integer> slots = stackMapTable.getSlotsWithConflictingTypes(getInitialFrameWidths(method));
+        bytecodeMeta.informDeclaredTypeClashes(slots);
+    }
+
+    /*
+     * The implicit first frame has an entry for 'this' (if any), and one per argument in the real descriptor
+     * (which may have more than the prototype we show).  Longs and doubles (not arrays of them!) take two slots.
+     * eg (JI)V, static - {true, false}, so the int is in slot 2.
+     */
+    private static boolean[] getInitialFrameWidths(Method method) {
+        String descriptor = method.getRawDescriptor();
+        List<Boolean> wide = ListFactory.newList();
+        if (!method.testAccessFlag(AccessFlagMethod.ACC_STATIC)) wide.add(false);
+        for (int x = 1; x < descriptor.length() && descriptor.charAt(x) != ')'; ++x) {
+            char c = descriptor.charAt(x);
+            if (c == '[') {
+                while (descriptor.charAt(x) == '[') x++;
+                if (descriptor.charAt(x) == 'L') x = descriptor.indexOf(';', x);
+                wide.add(false);
+                continue;
+            }
+            if (c == 'L') x = descriptor.indexOf(';', x);
+            wide.add(c == 'J' || c == 'D');
+        }
+        boolean[] res = new boolean[wide.size()];
+        for (int x = 0; x < res.length; ++x) {
+            res[x] = wide.get(x);
+        }
+        return res;
+    }
+
+    private AnalysisResult getAnalysisWithRecovery(List<Op01WithProcessedDataAndByteJumps> instrs, InstrOffsetTable offsetTable, DCCommonState dcCommonState, Options options, BytecodeMeta bytecodeMeta) {
+        AnalysisResult res;
         if (options.optionIsSet(OptionsImpl.FORCE_PASS)) {
             int pass = options.getOption(OptionsImpl.FORCE_PASS);
             if (pass < 0 || pass >= recoveryOptionsArr.length) {
                 throw new IllegalArgumentException("Illegal recovery pass idx");
             }
             RecoveryOptions.Applied applied = recoveryOptionsArr[pass].apply(dcCommonState, options, bytecodeMeta);
-            res = getAnalysisOrWrapFail(pass, instrs, dcCommonState, applied.options, applied.comments, bytecodeMeta);
+            res = getAnalysisOrWrapFail(pass, instrs, offsetTable, dcCommonState, applied.options, applied.comments, bytecodeMeta);
         } else {
+            /*
+             * A split slot can't carry a value round a loop - if the frames have misled us into splitting one,
+             * we'll get void declarations.  Then the hints have made things worse, so go without.
+             */
+            BytecodeMeta unhinted = bytecodeMeta.hasDeclaredTypeClashes() ? bytecodeMeta.copyWithoutDeclaredTypeClashes() : null;
 
-            res = getAnalysisOrWrapFail(0, instrs, dcCommonState, options, null, bytecodeMeta);
+            res = getAnalysisOrWrapFail(0, instrs, offsetTable, dcCommonState, options, null, bytecodeMeta);
+
+            if (unhinted != null && (res.isFailed() || hasVoidDeclaration(res))) {
+                bytecodeMeta = unhinted;
+                res = getAnalysisOrWrapFail(0, instrs, offsetTable, dcCommonState, options, null, bytecodeMeta);
+            }
 
             if (res.isFailed() && options.getOption(OptionsImpl.RECOVER)) {
+                // Only worth remembering how we recovered if we'll be released.
+                boolean remember = method != null && options.getOption(OptionsImpl.LOMEM) && dcCommonState.getAnalysisMemo().isEnabled();
                 int passIdx = 1;
                 for (RecoveryOptions recoveryOptions : recoveryOptionsArr) {
                     RecoveryOptions.Applied applied = recoveryOptions.apply(dcCommonState, options, bytecodeMeta);
                     if (!applied.valid) continue;
-                    AnalysisResult nextRes = getAnalysisOrWrapFail(passIdx++, instrs, dcCommonState, applied.options, applied.comments, bytecodeMeta);
+                    BytecodeMeta metaBefore = remember ? bytecodeMeta.copy() : null;
+                    int thisPass = passIdx;
+                    AnalysisResult nextRes = getAnalysisOrWrapFail(passIdx++, instrs, offsetTable, dcCommonState, applied.options, applied.comments, bytecodeMeta);
                     if (nextRes != null) {
                         if (res.isFailed() && nextRes.isFailed()) {
                             // If they both failed, only replace if the later failure is not an exception.
@@ -193,22 +317,20 @@ public class CodeAnalyser {
                         }
                     }
                     if (res.isFailed()) continue;
+                    dcCommonState.getAnalysisCounters().methodRecovered();
+                    if (remember) {
+                        recovery = new AnalysisMemo.Recovery(thisPass, applied.options, applied.comments, metaBefore);
+                    }
                     break;
                 }
             }
         }
+        return res;
+    }
 
-        if (res.getComments() != null) {
-            method.setComments(res.getComments());
-        }
-
-        /*
-         * Take the anonymous usages from the selected result.
-         */
-        res.getAnonymousClassUsage().useNotes();
-
-        analysed = res.getCode();
-        return analysed;
+    private static boolean hasVoidDeclaration(AnalysisResult res) {
+        DecompilerComments comments = res.getComments();
+        return comments != null && comments.getCommentCollection().contains(DecompilerComment.VOID_DECLARATION);
     }
 
     /*
@@ -246,11 +368,14 @@ public class CodeAnalyser {
         return instrs;
     }
 
-    private AnalysisResult getAnalysisOrWrapFail(int passIdx, List<Op01WithProcessedDataAndByteJumps> instrs, DCCommonState commonState, Options options, List<DecompilerComment> extraComments, BytecodeMeta bytecodeMeta) {
+    private AnalysisResult getAnalysisOrWrapFail(int passIdx, List<Op01WithProcessedDataAndByteJumps> instrs, InstrOffsetTable offsetTable, DCCommonState commonState, Options options, List<DecompilerComment> extraComments, BytecodeMeta bytecodeMeta) {
         try {
-            AnalysisResult res = getAnalysisInner(instrs, commonState, options, bytecodeMeta, passIdx);
+            AnalysisResult res = getAnalysisInner(instrs, offsetTable.copy(), commonState, options, bytecodeMeta, passIdx);
             if (extraComments != null) res.getComments().addComments(extraComments);
             return res;
+        } catch (AnalysisBudget.Exceeded e) {
+            // Not a failure of this pass - no point trying any more.
+            throw e;
         } catch (RuntimeException e) {
             return new AnalysisResultFromException(e);
         }
@@ -261,8 +386,9 @@ public class CodeAnalyser {
      *
      * passIdx is only useful for breakpointing.
      */
-    private AnalysisResult getAnalysisInner(List<Op01WithProcessedDataAndByteJumps> instrs, DCCommonState dcCommonState, Options options, BytecodeMeta bytecodeMeta, int passIdx) {
+    private AnalysisResult getAnalysisInner(List<Op01WithProcessedDataAndByteJumps> instrs, InstrOffsetTable lutByOffset, DCCommonState dcCommonState, Options options, BytecodeMeta bytecodeMeta, int passIdx) {
 
+        AnalysisBudget.check();
         boolean willSort = options.getOption(OptionsImpl.FORCE_TOPSORT) == Troolean.TRUE;
 
         ClassFile classFile = method.getClassFile();
@@ -275,19 +401,6 @@ public class CodeAnalyser {
             comments.addComment("Opcode count of " + instrs.size() + " triggered aggressive code reduction.  Override with --" + OptionsImpl.AGGRESSIVE_SIZE_REDUCTION_THRESHOLD.getName() + ".");
         }
 
-        SortedMap<Integer, Integer> lutByOffset = new TreeMap<Integer, Integer>();
-        Map<Integer, Integer> lutByIdx = new HashMap<Integer, Integer>();
-        int idx2 = 0;
-        int offset2 = -1;
-        for (Op01WithProcessedDataAndByteJumps op : instrs) {
-            lutByOffset.put(offset2, idx2);
-            lutByIdx.put(idx2, offset2);
-            offset2 += op.getInstructionLength();
-            idx2++;
-        }
-        lutByIdx.put(0, -1);
-        lutByOffset.put(-1, 0);
-
         List<Op01WithProcessedDataAndByteJumps> op1list = ListFactory.newList();
         List<Op02WithProcessedDataAndRefs> op2list = ListFactory.newList();
         // Now walk the indexed ops
@@ -303,14 +416,16 @@ public class CodeAnalyser {
         // then re-interpret the raw bytestream at that point until we sync up with real instructions, and
         // clone into new instructions.
         for (int x = 0, len = op1list.size(); x < len; ++x) {
-            int offsetOfThisInstruction = lutByIdx.get(x);
+            int offsetOfThisInstruction = lutByOffset.getOffset(x);
             int[] targetIdxs;
             try {
                 targetIdxs = op1list.get(x).getAbsoluteIndexJumps(offsetOfThisInstruction, lutByOffset);
             } catch (UnverifiableJumpException e) {
                 comments.addComment(DecompilerComment.UNVERIFIABLE_BYTECODE_BAD_JUMP);
                 // we can handle this if we fall back and reprocess the bytecode.
-                generateUnverifiable(x, op1list, op2list, lutByIdx, lutByOffset);
+                int before = op1list.size();
+                generateUnverifiable(x, op1list, op2list, lutByOffset);
+                bytecodeMeta.addInstrs(op1list.subList(before, op1list.size()));
                 try {
                     targetIdxs = op1list.get(x).getAbsoluteIndexJumps(offsetOfThisInstruction, lutByOffset);
                 } catch (UnverifiableJumpException e2) {
@@ -355,7 +470,7 @@ public class CodeAnalyser {
             /*
              * This one's less safe, but...
              */
-            exceptions.removeSynchronisedHandlers(lutByOffset, lutByIdx, instrs);
+            exceptions.removeSynchronisedHandlers(lutByOffset, instrs);
         }
 
         /*
@@ -452,12 +567,21 @@ public class CodeAnalyser {
         LValueProp.condenseLValues(op03SimpleParseNodes);
         op03SimpleParseNodes = Cleaner.sortAndRenumber(op03SimpleParseNodes);
 
-        // Before we expand raw switches, try to spot a particularly nasty pattern that kotlin
-        // generates for string switches.
-        op03SimpleParseNodes = KotlinSwitchHandler.extractStringSwitches(op03SimpleParseNodes, bytecodeMeta);
-        // Expand raw switch statements into more useful ones.
-        SwitchReplacer.replaceRawSwitches(method, op03SimpleParseNodes, blockIdentifierFactory, options);
-        op03SimpleParseNodes = Cleaner.sortAndRenumber(op03SimpleParseNodes);
+        // Nothing introduces a switch, so if the bytecode has none, none of the switch passes can do anything.
+        boolean usesSwitches = bytecodeMeta.uses(JVMInstr.TABLESWITCH, JVMInstr.LOOKUPSWITCH);
+        // String switches are always on hashCode(), enum switches on ordinal() - the call has to be here too.
+        boolean usesStringSwitches = usesSwitches && bytecodeMeta.refersToMethod(MiscConstants.HASHCODE);
+        boolean usesEnumSwitches = usesSwitches && bytecodeMeta.refersToMethod("ordinal");
+        if (usesSwitches) {
+            // Before we expand raw switches, try to spot a particularly nasty pattern that kotlin
+            // generates for string switches.
+            if (usesStringSwitches) {
+                op03SimpleParseNodes = KotlinSwitchHandler.extractStringSwitches(op03SimpleParseNodes, bytecodeMeta);
+            }
+            // Expand raw switch statements into more useful ones.
+            SwitchReplacer.replaceRawSwitches(method, op03SimpleParseNodes, blockIdentifierFactory, options);
+            op03SimpleParseNodes = Cleaner.sortAndRenumber(op03SimpleParseNodes);
+        }
 
         // Remove 2nd (+) jumps in pointless jump chains.
         Op03Rewriters.removePointlessJumps(op03SimpleParseNodes);
@@ -547,7 +671,9 @@ public class CodeAnalyser {
             /*
              * Now we've sorted, we need to rebuild switch blocks.....
              */
-            SwitchReplacer.rebuildSwitches(op03SimpleParseNodes, options);
+            if (usesSwitches) {
+                SwitchReplacer.rebuildSwitches(op03SimpleParseNodes, options);
+            }
             /*
              * This set of operations is /very/ aggressive.
              */
@@ -573,6 +699,7 @@ public class CodeAnalyser {
 
         boolean reloop;
         do {
+            AnalysisBudget.check();
             Op03Rewriters.rewriteNegativeJumps(op03SimpleParseNodes, true);
 
             Op03Rewriters.collapseAssignmentsIntoConditionals(op03SimpleParseNodes, options, classFileVersion);
@@ -621,6 +748,7 @@ public class CodeAnalyser {
 
         // Identify simple while loops.
         op03SimpleParseNodes = Cleaner.removeUnreachableCode(op03SimpleParseNodes, true);
+        AnalysisBudget.check();
         LoopIdentifier.identifyLoops1(method, op03SimpleParseNodes, blockIdentifierFactory);
 
         // After we've identified loops, try to push any instructions through a goto
@@ -655,7 +783,9 @@ public class CodeAnalyser {
         // (this removal and re-adding may seem daft, (and it often is), but we normalise code
         // and handle more cases by doing it).
         Op03Rewriters.extractExceptionJumps(op03SimpleParseNodes);
-        Op03Rewriters.extractAssertionJumps(op03SimpleParseNodes);
+        if (bytecodeMeta.refersToType(TypeConstants.ASSERTION_ERROR.getRawName())) {
+            Op03Rewriters.extractAssertionJumps(op03SimpleParseNodes);
+        }
         op03SimpleParseNodes = Cleaner.removeUnreachableCode(op03SimpleParseNodes, true);
 
         // Identify simple (nested) conditionals - note that this also generates ternary expressions,
@@ -710,12 +840,20 @@ public class CodeAnalyser {
 
         SynchronizedBlocks.findSynchronizedBlocks(op03SimpleParseNodes);
 
-        Op03SimpleStatement.removePointlessSwitchDefaults(op03SimpleParseNodes);
+        if (usesSwitches) {
+            Op03SimpleStatement.removePointlessSwitchDefaults(op03SimpleParseNodes);
+        }
 
         op03SimpleParseNodes = Op03Rewriters.removeUselessNops(op03SimpleParseNodes);
 
-        Op03Rewriters.rewriteWith(op03SimpleParseNodes, new StringBuilderRewriter(options, classFileVersion));
-        Op03Rewriters.rewriteWith(op03SimpleParseNodes, new XorRewriter());
+        // Concatenation is either StringBuilder / StringBuffer chains, or (java 9+) an indy call.
+        if (bytecodeMeta.refersToType(TypeConstants.stringBuilderName) ||
+                bytecodeMeta.refersToType(TypeConstants.stringBufferName) ||
+                bytecodeMeta.has(BytecodeMeta.CodeInfoFlag.USES_INVOKEDYNAMIC)) {
+            Op03Rewriters.rewriteWith(op03SimpleParseNodes, new StringBuilderRewriter(options, classFileVersion), new XorRewriter());
+        } else {
+            Op03Rewriters.rewriteWith(op03SimpleParseNodes, new XorRewriter());
+        }
 
         op03SimpleParseNodes = Cleaner.removeUnreachableCode(op03SimpleParseNodes, true);
 
@@ -776,6 +914,7 @@ public class CodeAnalyser {
         Op03Rewriters.rewriteWith(op03SimpleParseNodes, new BadNarrowingArgRewriter());
         Cleaner.reindexInPlace(op03SimpleParseNodes);
 
+        AnalysisBudget.check();
         Op04StructuredStatement block = Op03SimpleStatement.createInitialStructuredBlock(op03SimpleParseNodes);
 
         Op04StructuredStatement.tidyEmptyCatch(block);
@@ -807,8 +946,12 @@ public class CodeAnalyser {
 
             // Replace with a more generic interface, etc.
 
-            new SwitchStringRewriter(options, classFileVersion, bytecodeMeta).rewrite(block);
-            new SwitchEnumRewriter(dcCommonState, classFile, blockIdentifierFactory).rewrite(block);
+            if (usesStringSwitches) {
+                new SwitchStringRewriter(options, classFileVersion, bytecodeMeta).rewrite(block);
+            }
+            if (usesEnumSwitches) {
+                new SwitchEnumRewriter(dcCommonState, classFile, blockIdentifierFactory).rewrite(block);
+            }
 
             // Just prior to variable scopes, if we've got any anonymous classes, and we're J10+,
             // then see if we are addressing non-existent content of anonymous objects.
@@ -830,11 +973,12 @@ public class CodeAnalyser {
             if (bytecodeMeta.has(BytecodeMeta.CodeInfoFlag.INSTANCE_OF_MATHCES)) {
                 Op04StructuredStatement.tidyInstanceMatches(block);
             }
-            if (options.getOption(OptionsImpl.REWRITE_TRY_RESOURCES, classFileVersion)) {
+            if (bytecodeMeta.has(BytecodeMeta.CodeInfoFlag.USES_EXCEPTIONS) &&
+                    options.getOption(OptionsImpl.REWRITE_TRY_RESOURCES, classFileVersion)) {
                 Op04StructuredStatement.removeEndResource(method.getClassFile(), block);
             }
 
-            if (options.getOption(OptionsImpl.SWITCH_EXPRESSION, classFileVersion)) {
+            if (usesSwitches && options.getOption(OptionsImpl.SWITCH_EXPRESSION, classFileVersion)) {
                 Op04StructuredStatement.switchExpression(method, block, comments);
             }
 
@@ -869,8 +1013,8 @@ public class CodeAnalyser {
             /*
              * Now finally run some extra checks to spot wierdness.
              */
-            Op04StructuredStatement.applyChecker(new LooseCatchChecker(), block, comments);
-            Op04StructuredStatement.applyChecker(new VoidVariableChecker(), block, comments);
+            Op04StructuredStatement.applyCheckers(block, comments, new LooseCatchChecker(), new VoidVariableChecker());
+            // This looks at a block's children, so can't share a walk.
             Op04StructuredStatement.applyChecker(new IllegalReturnChecker(), block, comments);
 
             Op04StructuredStatement.flattenNonReferencedBlocks(block);
@@ -893,18 +1037,18 @@ public class CodeAnalyser {
         return new AnalysisResultSuccessful(comments, block, anonymousClassUsage);
     }
 
-    private void generateUnverifiable(int x, List<Op01WithProcessedDataAndByteJumps> op1list, List<Op02WithProcessedDataAndRefs> op2list, Map<Integer, Integer> lutByIdx, SortedMap<Integer, Integer> lutByOffset) {
+    private void generateUnverifiable(int x, List<Op01WithProcessedDataAndByteJumps> op1list, List<Op02WithProcessedDataAndRefs> op2list, InstrOffsetTable lutByOffset) {
         Op01WithProcessedDataAndByteJumps instr = op1list.get(x);
         int thisRaw = instr.getOriginalRawOffset();
         int[] thisTargets = instr.getRawTargetOffsets();
         for (int target : thisTargets) {
-            if (null == lutByOffset.get(target + thisRaw)) {
-                generateUnverifiableInstr(target + thisRaw, op1list, op2list, lutByIdx, lutByOffset);
+            if (!lutByOffset.hasOffset(target + thisRaw)) {
+                generateUnverifiableInstr(target + thisRaw, op1list, op2list, lutByOffset);
             }
         }
     }
 
-    private void generateUnverifiableInstr(int offset, List<Op01WithProcessedDataAndByteJumps> op1list, List<Op02WithProcessedDataAndRefs> op2list, Map<Integer, Integer> lutByIdx, SortedMap<Integer, Integer> lutByOffset) {
+    private void generateUnverifiableInstr(int offset, List<Op01WithProcessedDataAndByteJumps> op1list, List<Op02WithProcessedDataAndRefs> op2list, InstrOffsetTable lutByOffset) {
         ByteData rawData = originalCodeAttribute.getRawData();
         int codeLength = originalCodeAttribute.getCodeLength();
         do {
@@ -921,18 +1065,16 @@ public class CodeAnalyser {
             }
             int targetIdx = op1list.size();
             op1list.add(op01);
-            lutByIdx.put(targetIdx, offset);
-            lutByOffset.put(offset, targetIdx);
+            lutByOffset.put(targetIdx, offset);
             Op02WithProcessedDataAndRefs op02 = op01.createOp2(cp, targetIdx);
             op2list.add(op02);
             if (noTargets) return;
             int nextOffset = offset + op01.getInstructionLength();
-            if (lutByOffset.containsKey(nextOffset)) {
+            if (lutByOffset.hasOffset(nextOffset)) {
                 // fine.  We now have to create a jump back to here.
                 targetIdx = op1list.size();
                 int fakeOffset = -op1list.size();
-                lutByIdx.put(targetIdx, fakeOffset);
-                lutByOffset.put(fakeOffset, targetIdx);
+                lutByOffset.put(targetIdx, fakeOffset);
                 int[] rawTargets = new int[1];
                 rawTargets[0] = nextOffset - fakeOffset;
                 Op01WithProcessedDataAndByteJumps fakeGoto = new Op01WithProcessedDataAndByteJumps(JVMInstr.GOTO, null, rawTargets, fakeOffset);
@@ -950,6 +1092,10 @@ public class CodeAnalyser {
     }
 
     public void releaseCode() {
+        if (recovery != null && analysed != null && analysed != POISON && method != null) {
+            cp.getDCCommonState().getAnalysisMemo().put(method, recovery, originalCodeAttribute.getCodeLength());
+        }
+        recovery = null;
         analysed = null;
     }
 }
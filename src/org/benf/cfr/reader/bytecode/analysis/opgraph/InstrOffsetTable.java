@@ -0,0 +1,113 @@
+package org.benf.cfr.reader.bytecode.analysis.opgraph;
+
+import org.benf.cfr.reader.util.ConfusedCFRException;
+import org.benf.cfr.reader.util.collections.MapFactory;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * Bidirectional mapping between raw bytecode offsets and instruction indices.
+ *
+ * Real offsets are in [0, codeLength), so we hold a dense int array over the code, rather than
+ * boxing into a tree map.  The only negative offsets are the sentinel NOP at -1, and fake instructions
+ * introduced when recovering from unverifiable jumps - these are rare, so are kept to one side.
+ */
+public class InstrOffsetTable {
+    private static final int NONE = -1;
+
+    private final int[] idxByOffset;
+    private final Map<Integer, Integer> idxByNegativeOffset;
+    private int[] offsetByIdx;
+    private int size;
+
+    private InstrOffsetTable(int[] idxByOffset, Map<Integer, Integer> idxByNegativeOffset, int[] offsetByIdx, int size) {
+        this.idxByOffset = idxByOffset;
+        this.idxByNegativeOffset = idxByNegativeOffset;
+        this.offsetByIdx = offsetByIdx;
+        this.size = size;
+    }
+
+    /*
+     * instrs is expected to start with the sentinel, which lives at -1.
+     */
+    public static InstrOffsetTable build(List<Op01WithProcessedDataAndByteJumps> instrs, int codeLength) {
+        int[] idxByOffset = new int[codeLength];
+        Arrays.fill(idxByOffset, NONE);
+        InstrOffsetTable res = new InstrOffsetTable(idxByOffset, MapFactory.<Integer, Integer>newMap(), new int[instrs.size()], 0);
+        int offset = -1;
+        for (int idx = 0, len = instrs.size(); idx < len; ++idx) {
+            res.put(idx, offset);
+            offset += instrs.get(idx).getInstructionLength();
+        }
+        return res;
+    }
+
+    /*
+     * Recovery passes may add entries, so each pass gets its own copy.
+     */
+    public InstrOffsetTable copy() {
+        Map<Integer, Integer> negativeCopy = MapFactory.newMap();
+        negativeCopy.putAll(idxByNegativeOffset);
+        return new InstrOffsetTable(idxByOffset.clone(), negativeCopy, offsetByIdx.clone(), size);
+    }
+
+    public void put(int idx, int offset) {
+        if (offset >= 0) {
+            idxByOffset[offset] = idx;
+        } else {
+            idxByNegativeOffset.put(offset, idx);
+        }
+        if (idx >= offsetByIdx.length) {
+            offsetByIdx = Arrays.copyOf(offsetByIdx, Math.max(idx + 1, offsetByIdx.length * 2));
+        }
+        offsetByIdx[idx] = offset;
+        if (idx >= size) size = idx + 1;
+    }
+
+    public boolean hasOffset(int offset) {
+        return getIdx(offset) != NONE;
+    }
+
+    /*
+     * Index of instruction at offset, or -1 if this isn't the start of an instruction.
+     */
+    public int getIdx(int offset) {
+        if (offset >= 0) {
+            return offset < idxByOffset.length ? idxByOffset[offset] : NONE;
+        }
+        Integer res = idxByNegativeOffset.get(offset);
+        return res == null ? NONE : res;
+    }
+
+    public int getRequiredIdx(int offset) {
+        int res = getIdx(offset);
+        if (res == NONE) {
+            throw new ConfusedCFRException("Offset " + offset + " is not a valid entry into the code block");
+        }
+        return res;
+    }
+
+    public int getOffset(int idx) {
+        return offsetByIdx[idx];
+    }
+
+    /*
+     * Distance back to the start of the instruction before offset.  1 if there is none.
+     */
+    public int getDistanceToPrecedingInstr(int offset) {
+        for (int x = Math.min(offset, idxByOffset.length) - 1; x >= 0; --x) {
+            if (idxByOffset[x] != NONE) return offset - x;
+        }
+        Integer best = null;
+        for (Integer negative : idxByNegativeOffset.keySet()) {
+            if (negative < offset && (best == null || negative > best)) best = negative;
+        }
+        return best == null ? 1 : offset - best;
+    }
+
+    public int size() {
+        return size;
+    }
+}
@@ -5,8 +5,6 @@ import org.benf.cfr.reader.entities.constantpool.ConstantPool;
 import org.benf.cfr.reader.entities.constantpool.ConstantPoolEntry;
 import org.benf.cfr.reader.util.UnverifiableJumpException;
 
-import java.util.Map;
-
 public class Op01WithProcessedDataAndByteJumps {
     private final JVMInstr instruction;
     /* For 0 argument opcodes, the below should be irrelevant, indeed we could have singletons. */
@@ -49,12 +47,16 @@ public class Op01WithProcessedDataAndByteJumps {
         return data;
     }
 
+    public ConstantPoolEntry[] getConstantPoolEntries() {
+        return constantPoolEntries;
+    }
+
     public Op02WithProcessedDataAndRefs createOp2(ConstantPool cp, int index) {
         return new Op02WithProcessedDataAndRefs(instruction, data, index, cp, constantPoolEntries, originalRawOffset);
     }
 
-    public int[] getAbsoluteIndexJumps(int thisOpByteIndex, Map<Integer, Integer> lutByOffset) {
-        int thisOpInstructionIndex = lutByOffset.get(thisOpByteIndex);
+    public int[] getAbsoluteIndexJumps(int thisOpByteIndex, InstrOffsetTable lutByOffset) {
+        int thisOpInstructionIndex = lutByOffset.getRequiredIdx(thisOpByteIndex);
         if (rawTargetOffsets == null) {
             return new int[]{thisOpInstructionIndex + 1};
         }
@@ -64,8 +66,8 @@ public class Op01WithProcessedDataAndByteJumps {
         int[] targetIndexes = new int[rawTargetOffsets.length];
         for (int x = 0; x < rawTargetOffsets.length; ++x) {
             int targetRawAddress = thisOpByteIndex + rawTargetOffsets[x];
-            Integer targetIndex = lutByOffset.get(targetRawAddress);
-            if (targetIndex == null) {
+            int targetIndex = lutByOffset.getIdx(targetRawAddress);
+            if (targetIndex == -1) {
                 // Oh this is fun.  We have a jump-to-middle of instruction.
                 // (https://anthony.som.codes/blog/2019-12-30-jvm-hackery-noverify/)
                 throw new UnverifiableJumpException();
@@ -204,14 +204,17 @@ public class Op02WithProcessedDataAndRefs implements Dumpable, Graph<Op02WithPro
             }
 
 
-            List<StackEntryHolder> alsoConsumed = ListFactory.newList();
-            List<StackEntryHolder> alsoProduced = ListFactory.newList();
-            StackSim newStackSim = stackSim.getChange(stackDelta, alsoConsumed, alsoProduced, this);
-            if (alsoConsumed.size() != stackConsumed.size()) {
+            /*
+             * We've been here before, so there's no need to build the stack we'd produce - what we consume, and
+             * what's left underneath, can be read straight off the incoming stack.
+             */
+            int numConsumed = stackDelta.isNoOp() ? 0 : stackDelta.getConsumed().size();
+            int numProduced = stackDelta.isNoOp() ? 0 : stackDelta.getProduced().size();
+            if (numConsumed != stackConsumed.size()) {
                 throw new ConfusedCFRException("Unexpected stack sizes on merge");
             }
-            for (int i = 0; i < stackConsumed.size(); ++i) {
-                stackConsumed.get(i).mergeWith(alsoConsumed.get(i));
+            for (int i = 0; i < numConsumed; ++i) {
+                stackConsumed.get(i).mergeWith(stackSim.getHolder(i));
             }
             /*
              * If unconsumed joined stack is set, see below, we must be merging something this instruction doesn't
@@ -219,11 +222,10 @@ public class Op02WithProcessedDataAndRefs implements Dumpable, Graph<Op02WithPro
              */
             if (unconsumedJoinedStack != null) {
                 // Need to take the unconsumedJoinedStack, ignore the
-                long depth = unconsumedJoinedStack.getDepth() - alsoProduced.size();
-                List<StackEntryHolder> unconsumedEntriesOld = unconsumedJoinedStack.getHolders(alsoProduced.size(), depth);
-                List<StackEntryHolder> unconsumedEntriesNew = newStackSim.getHolders(alsoProduced.size(), depth);
+                long depth = unconsumedJoinedStack.getDepth() - numProduced;
+                List<StackEntryHolder> unconsumedEntriesOld = unconsumedJoinedStack.getHolders(numProduced, depth);
                 for (int i = 0; i < unconsumedEntriesOld.size(); ++i) {
-                    unconsumedEntriesOld.get(i).mergeWith(unconsumedEntriesNew.get(i));
+                    unconsumedEntriesOld.get(i).mergeWith(stackSim.getHolder(numConsumed + i));
                 }
             }
 
@@ -1670,7 +1672,7 @@ public class Op02WithProcessedDataAndRefs implements Dumpable, Graph<Op02WithPro
         }
         statements.get(0).ssaIdentifiers = new SSAIdentifiers<Slot>(idents);
 
-        final Set<Integer> livenessClashes = bytecodeMeta.getLivenessClashes();
+        final Set<Integer> livenessClashes = bytecodeMeta.getLifetimeSplits();
 
         final BinaryPredicate<Slot, Slot> testSlot = new BinaryPredicate<Slot, Slot>() {
             @Override
@@ -1897,7 +1899,7 @@ public class Op02WithProcessedDataAndRefs implements Dumpable, Graph<Op02WithPro
                 }
         );
 
-        final Set<Integer> livenessClashes = bytecodeMeta.getLivenessClashes();
+        final Set<Integer> livenessClashes = bytecodeMeta.getLifetimeSplits();
 
         for (Op02WithProcessedDataAndRefs op : op2list) {
             SSAIdentifiers<Slot> identifiers = op.ssaIdentifiers;
@@ -1980,7 +1982,7 @@ public class Op02WithProcessedDataAndRefs implements Dumpable, Graph<Op02WithPro
                                     s1 = (StackType)innerslotkey.getSecond().getComparisonType();
                                 }
                                 if (slotkey.getSecond().getComparisonType() instanceof StackType) {
-                                    s2 = (StackType)innerslotkey.getSecond().getComparisonType();
+                                    s2 = (StackType)slotkey.getSecond().getComparisonType();
                                 }
                                 if (!(s1 == s2 && s1.isClosed()) || s1 == StackType.INT) {
                                     return;
@@ -2194,9 +2196,9 @@ public class Op02WithProcessedDataAndRefs implements Dumpable, Graph<Op02WithPro
         }
     }
 
-    private static int getLastIndex(Map<Integer, Integer> lutByOffset, int op2count, long codeLength, int offset) {
-        Integer iinclusiveLastIndex = lutByOffset.get(offset);
-        if (iinclusiveLastIndex == null) {
+    private static int getLastIndex(InstrOffsetTable lutByOffset, int op2count, long codeLength, int offset) {
+        int iinclusiveLastIndex = lutByOffset.getIdx(offset);
+        if (iinclusiveLastIndex == -1) {
             if (offset == codeLength) {
                 iinclusiveLastIndex = op2count - 1;
             } else {
@@ -2209,7 +2211,7 @@ public class Op02WithProcessedDataAndRefs implements Dumpable, Graph<Op02WithPro
     public static List<Op02WithProcessedDataAndRefs> insertExceptionBlocks(
             List<Op02WithProcessedDataAndRefs> op2list,
             ExceptionAggregator exceptions,
-            Map<Integer, Integer> lutByOffset,
+            InstrOffsetTable lutByOffset,
             ConstantPool cp,
             long codeLength,
             Options options
@@ -2229,7 +2231,7 @@ public class Op02WithProcessedDataAndRefs implements Dumpable, Graph<Op02WithPro
 //        Iterator<ExceptionGroup> iter = exceptions.getExceptionsGroups().iterator();
 //        while (iter.hasNext()) {
 //            ExceptionGroup exceptionGroup = iter.next();
-//            int originalIndex = lutByOffset.get(exceptionGroup.getBytecodeIndexFrom());
+//            int originalIndex = lutByOffset.getRequiredIdx(exceptionGroup.getBytecodeIndexFrom());
 //            int exclusiveLastIndex = getLastIndex(lutByOffset, originalInstrCount, codeLength, exceptionGroup.getByteCodeIndexTo());
 //            if (exclusiveLastIndex == originalIndex + 1) {
 //                iter.remove();
@@ -2240,7 +2242,7 @@ public class Op02WithProcessedDataAndRefs implements Dumpable, Graph<Op02WithPro
         // they get the correct identifiers
         for (ExceptionGroup exceptionGroup : exceptions.getExceptionsGroups()) {
             BlockIdentifier tryBlockIdentifier = exceptionGroup.getTryBlockIdentifier();
-            int originalIndex = lutByOffset.get(exceptionGroup.getBytecodeIndexFrom());
+            int originalIndex = lutByOffset.getRequiredIdx(exceptionGroup.getBytecodeIndexFrom());
             int exclusiveLastIndex = getLastIndex(lutByOffset, originalInstrCount, codeLength, exceptionGroup.getByteCodeIndexTo());
 
             for (int x = originalIndex; x < exclusiveLastIndex; ++x) {
@@ -2255,7 +2257,7 @@ public class Op02WithProcessedDataAndRefs implements Dumpable, Graph<Op02WithPro
         for (ExceptionGroup exceptionGroup : exceptions.getExceptionsGroups()) {
 
             List<ExceptionGroup.Entry> rawes = exceptionGroup.getEntries();
-            int originalIndex = lutByOffset.get(exceptionGroup.getBytecodeIndexFrom());
+            int originalIndex = lutByOffset.getRequiredIdx(exceptionGroup.getBytecodeIndexFrom());
             Op02WithProcessedDataAndRefs startInstruction = op2list.get(originalIndex);
 
             int inclusiveLastIndex = getLastIndex(lutByOffset, originalInstrCount, codeLength, exceptionGroup.getByteCodeIndexTo());
@@ -2265,7 +2267,7 @@ public class Op02WithProcessedDataAndRefs implements Dumpable, Graph<Op02WithPro
             List<Pair<Op02WithProcessedDataAndRefs, ExceptionGroup.Entry>> handlerTargets = ListFactory.newList();
             for (ExceptionGroup.Entry exceptionEntry : rawes) {
                 int handler = exceptionEntry.getBytecodeIndexHandler();
-                int handlerIndex = lutByOffset.get(handler);
+                int handlerIndex = lutByOffset.getRequiredIdx(handler);
                 if (handlerIndex <= originalIndex) {
                     if (!options.getOption(OptionsImpl.LENIENT)) {
                         throw new ConfusedCFRException("Back jump on a try block " + exceptionEntry);
@@ -12,6 +12,7 @@ import org.benf.cfr.reader.bytecode.analysis.parse.utils.BlockType;
 import org.benf.cfr.reader.bytecode.analysis.types.JavaRefTypeInstance;
 import org.benf.cfr.reader.entities.exceptions.ExceptionCheckSimple;
 import org.benf.cfr.reader.entities.exceptions.ExceptionGroup;
+import org.benf.cfr.reader.util.AnalysisBudget;
 import org.benf.cfr.reader.util.DecompilerComment;
 import org.benf.cfr.reader.util.DecompilerComments;
 import org.benf.cfr.reader.util.MiscUtils;
@@ -50,6 +51,7 @@ public class Op03Blocks {
         List<Block3> output = ListFactory.newList(in.size());
 
         while (!allBlocks.isEmpty()) {
+            AnalysisBudget.check();
             Block3 next;
             if (!ready.isEmpty()) {
                 /*
@@ -683,12 +685,20 @@ public class Op03Blocks {
         return blocks;
     }
 
+    /*
+     * Every round which goes again has moved at least one block into place between its source and target, so
+     * we'd expect to settle well within a round per block.  Don't rely on that though - the budget isn't on by
+     * default.  Stopping early is safe, the blocks are consistent after each round, just not as tidy.
+     */
     private static List<Block3> combineNeighbouringBlocks(List<Block3> blocks) {
         boolean reloop;
+        int maxRounds = blocks.size();
+        int rounds = 0;
         do {
+            AnalysisBudget.check();
             blocks = combineNeighbouringBlocksPass1(blocks);
             reloop = moveSingleOutOrderBlocks(blocks);
-        } while (reloop);
+        } while (reloop && ++rounds < maxRounds);
         // Now try to see if we can move single blocks into place.
         return blocks;
     }
@@ -823,9 +833,25 @@ public class Op03Blocks {
         Block3 curr = blocks.get(0);
         int curridx = 0;
 
-        for (int i=1, len=blocks.size(); i<len; ++i) {
+        /*
+         * Merged blocks leave holes, and we rewind after every merge - so link the survivors, rather than
+         * rescanning the holes each time (which is quadratic on long runs of mergeable blocks).
+         */
+        int len = blocks.size();
+        int[] prevLive = new int[len];
+        int[] nextLive = new int[len];
+        int lastLive = 0;
+        prevLive[0] = -1;
+        for (int i=1; i<len; ++i) {
+            if (blocks.get(i) == null) continue;
+            nextLive[lastLive] = i;
+            prevLive[i] = lastLive;
+            lastLive = i;
+        }
+        nextLive[lastLive] = len;
+
+        for (int i=nextLive[0]; i<len; i=nextLive[i]) {
             Block3 next = blocks.get(i);
-            if (next == null) continue;
             // This pass is too aggressive - this means we will roll both sides of a conditional together, and
             // won't be able to reorder them...
             if (next.sources.size() == 1 && getSingle(next.sources) == curr &&
@@ -851,16 +877,16 @@ public class Op03Blocks {
                     curr.sources.remove(curr);
                     curr.targets.remove(curr);
                     blocks.set(i, null);
+                    // Unlink - i's own nextLive is left alone, as we may carry on from it.
+                    nextLive[curridx] = nextLive[i];
+                    if (nextLive[i] < len) prevLive[nextLive[i]] = curridx;
                     // Try to rewind current to the last block before it, as we may be able to merge with predencessor
                     // now.
-                    for (int j=curridx-1;j>=0;j--) {
-                        Block3 tmp = blocks.get(j);
-                        if (tmp != null) {
-                            curr = tmp;
-                            curridx = j;
-                            i = j;
-                            break;
-                        }
+                    int j = prevLive[curridx];
+                    if (j >= 0) {
+                        curr = blocks.get(j);
+                        curridx = j;
+                        i = j;
                     }
                     continue;
                 }
@@ -3,6 +3,7 @@ package org.benf.cfr.reader.bytecode.analysis.opgraph;
 import org.benf.cfr.reader.bytecode.AnonymousClassUsage;
 import org.benf.cfr.reader.bytecode.BytecodeMeta;
 import org.benf.cfr.reader.bytecode.analysis.opgraph.op4rewriters.*;
+import org.benf.cfr.reader.bytecode.analysis.opgraph.op4rewriters.checker.LocalOp04Checker;
 import org.benf.cfr.reader.bytecode.analysis.opgraph.op4rewriters.checker.Op04Checker;
 import org.benf.cfr.reader.bytecode.analysis.opgraph.op4rewriters.transformers.*;
 import org.benf.cfr.reader.bytecode.analysis.opgraph.op4rewriters.util.MiscStatementTools;
@@ -716,7 +717,7 @@ public class Op04StructuredStatement implements MutableGraph<Op04StructuredState
         }
     }
 
-    public static void applyTypeAnnotations(AttributeCode code, Op04StructuredStatement root, SortedMap<Integer, Integer> instrsByOffset,
+    public static void applyTypeAnnotations(AttributeCode code, Op04StructuredStatement root, InstrOffsetTable instrsByOffset,
                                             DecompilerComments comments) {
         AttributeTypeAnnotations vis = code.getRuntimeVisibleTypeAnnotations();
         AttributeTypeAnnotations invis = code.getRuntimeInvisibleTypeAnnotations();
@@ -758,14 +759,19 @@ public class Op04StructuredStatement implements MutableGraph<Op04StructuredState
         new TypedBooleanTidier().transform(root);
     }
 
+    /*
+     * These are all local, so share a walk.
+     */
     public static void miscKeyholeTransforms(VariableFactory variableFactory, Op04StructuredStatement root) {
-        new NakedNullCaster().transform(root);
-        new LambdaCleaner().transform(root);
-        new TernaryCastCleaner().transform(root);
-        new InvalidBooleanCastCleaner().transform(root);
-        new HexLiteralTidier().transform(root);
-        new ExpressionRewriterTransformer(LiteralRewriter.INSTANCE).transform(root);
-        new InvalidExpressionStatementCleaner(variableFactory).transform(root);
+        new FusedStructuredTransformer(
+                new NakedNullCaster(),
+                new LambdaCleaner(),
+                new TernaryCastCleaner(),
+                new InvalidBooleanCastCleaner(),
+                new HexLiteralTidier(),
+                new ExpressionRewriterTransformer(LiteralRewriter.INSTANCE),
+                new InvalidExpressionStatementCleaner(variableFactory)
+        ).transform(root);
     }
 
     public static void prettifyBadLoops(Op04StructuredStatement root) {
@@ -1166,6 +1172,16 @@ public class Op04StructuredStatement implements MutableGraph<Op04StructuredState
         checker.commentInto(comments);
     }
 
+    /*
+     * As applyChecker, but in a single walk.
+     */
+    public static void applyCheckers(Op04StructuredStatement root, DecompilerComments comments, LocalOp04Checker... checkers) {
+        new FusedStructuredTransformer(checkers).transform(root);
+        for (Op04Checker checker : checkers) {
+            checker.commentInto(comments);
+        }
+    }
+
     public static boolean isTryWithResourceSynthetic(Method m, Op04StructuredStatement root) {
         return ResourceReleaseDetector.isResourceRelease(m, root);
     }
@@ -0,0 +1,37 @@
+package org.benf.cfr.reader.bytecode.analysis.opgraph;
+
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * Position of each statement in a statement list - rather than List.indexOf, which made walking all the
+ * statements and asking about each one quadratic.
+ *
+ * Lookups check themselves, so this survives edits to the list - a stale answer is noticed and the index rebuilt.
+ */
+public class StatementIndex<T> {
+    private final List<T> statements;
+
+    private Map<T, Integer> index;
+
+    public StatementIndex(List<T> statements) {
+        this.statements = statements;
+    }
+
+    /*
+     * As statements.indexOf(statement).
+     */
+    public int indexOf(T statement) {
+        if (index != null) {
+            Integer idx = index.get(statement);
+            if (idx != null && idx < statements.size() && statements.get(idx) == statement) return idx;
+        }
+        index = new IdentityHashMap<T, Integer>();
+        for (int x = statements.size() - 1; x >= 0; --x) {
+            index.put(statements.get(x), x);
+        }
+        Integer idx = index.get(statement);
+        return idx == null ? -1 : idx;
+    }
+}
@@ -14,26 +14,21 @@ import org.benf.cfr.reader.bytecode.analysis.parse.utils.SSAIdentifiers;
 import org.benf.cfr.reader.bytecode.analysis.parse.wildcard.WildcardMatch;
 import org.benf.cfr.reader.bytecode.analysis.stack.StackEntry;
 import org.benf.cfr.reader.util.ConfusedCFRException;
-import org.benf.cfr.reader.util.collections.Functional;
 import org.benf.cfr.reader.util.collections.ListFactory;
-import org.benf.cfr.reader.util.functors.Predicate;
 
 import java.util.List;
 
 public class AnonymousArray {
 
 
-    private static boolean resugarAnonymousArray(Op03SimpleStatement newArray) {
+    private static boolean resugarAnonymousArray(Op03SimpleStatement newArray, WildcardMatch start, AssignmentSimple newArrayPattern) {
         Statement stm = newArray.getStatement();
         if (!(stm instanceof AssignmentSimple)) {
             return false;
         }
         AssignmentSimple assignmentSimple = (AssignmentSimple) newArray.getStatement();
-        WildcardMatch start = new WildcardMatch();
-        if (!start.match(
-                new AssignmentSimple(start.getLValueWildCard("array"), start.getNewArrayWildCard("def")),
-                assignmentSimple
-        )) {
+        start.reset();
+        if (!start.match(newArrayPattern, assignmentSimple)) {
             throw new ConfusedCFRException("Expecting new array");
         }
         /*
@@ -60,21 +55,34 @@ public class AnonymousArray {
         } else {
             arrayExpression = new LValueExpression(array);
         }
+        /*
+         * Same shape for every element, so build it once - the index has to be checked separately, as it
+         * changes.
+         */
+        WildcardMatch testAnon = new WildcardMatch();
+        WildcardMatch.ExpressionWildcard idxWildcard = testAnon.getExpressionWildCard("idx");
+        WildcardMatch.ExpressionWildcard valWildcard = testAnon.getExpressionWildCard("val");
+        AssignmentSimple elementPattern = new AssignmentSimple(
+                new ArrayVariable(new ArrayIndex(arrayExpression, idxWildcard)),
+                valWildcard);
         for (int x = 0; x < bound; ++x) {
             if (next.getTargets().size() != 1) {
                 return false;
             }
             next = next.getTargets().get(0);
-            WildcardMatch testAnon = new WildcardMatch();
+            Statement elementStm = next.getStatement();
+            if (!(elementStm instanceof AssignmentSimple)) {
+                return false;
+            }
+            testAnon.reset();
+            if (!testAnon.match(elementPattern, elementStm)) {
+                return false;
+            }
             Literal idx = new Literal(TypedLiteral.getInt(x));
-            if (!testAnon.match(
-                    new AssignmentSimple(
-                            new ArrayVariable(new ArrayIndex(arrayExpression, idx)),
-                            testAnon.getExpressionWildCard("val")),
-                    next.getStatement())) {
+            if (!idx.equals(idxWildcard.getMatch())) {
                 return false;
             }
-            anon.add(testAnon.getExpressionWildCard("val").getMatch());
+            anon.add(valWildcard.getMatch());
             anonAssigns.add(next);
         }
         AssignmentSimple replacement = new AssignmentSimple(assignmentSimple.getCreatedLValue(), new NewAnonymousArray(arrayDef.getInferredJavaType(), arrayDef.getNumDims(), anon, false));
@@ -110,24 +118,29 @@ public class AnonymousArray {
      * array definition!)
      */
     public static void resugarAnonymousArrays(List<Op03SimpleStatement> statements) {
+        /*
+         * Match objects hold their bindings, so one pattern does for the whole pass, as long as we reset before
+         * each test.
+         */
+        WildcardMatch wildcardMatch = new WildcardMatch();
+        AssignmentSimple newArrayPattern = new AssignmentSimple(wildcardMatch.getLValueWildCard("array"), wildcardMatch.getNewArrayWildCard("def", 1, null));
         boolean success;
         do {
-            List<Op03SimpleStatement> assignments = Functional.filter(statements, new TypeFilter<AssignmentSimple>(AssignmentSimple.class));
-            // filter for structure now
-            assignments = Functional.filter(assignments, new Predicate<Op03SimpleStatement>() {
-                @Override
-                public boolean test(Op03SimpleStatement in) {
-                    AssignmentSimple assignmentSimple = (AssignmentSimple) in.getStatement();
-                    WildcardMatch wildcardMatch = new WildcardMatch();
-                    return (wildcardMatch.match(
-                            new AssignmentSimple(wildcardMatch.getLValueWildCard("array"), wildcardMatch.getNewArrayWildCard("def", 1, null)),
-                            assignmentSimple
-                    ));
+            // filter for structure now - only bother matching if the rhs could be a new array at all.
+            List<Op03SimpleStatement> assignments = ListFactory.newList();
+            for (Op03SimpleStatement statement : statements) {
+                Statement stm = statement.getStatement();
+                if (!(stm instanceof AssignmentSimple)) continue;
+                AssignmentSimple assignmentSimple = (AssignmentSimple) stm;
+                if (!(assignmentSimple.getRValue() instanceof AbstractNewArray)) continue;
+                wildcardMatch.reset();
+                if (wildcardMatch.match(newArrayPattern, assignmentSimple)) {
+                    assignments.add(statement);
                 }
-            });
+            }
             success = false;
             for (Op03SimpleStatement assignment : assignments) {
-                success |= resugarAnonymousArray(assignment);
+                success |= resugarAnonymousArray(assignment, wildcardMatch, newArrayPattern);
             }
             if (success) {
                 LValueProp.condenseLValues(statements);
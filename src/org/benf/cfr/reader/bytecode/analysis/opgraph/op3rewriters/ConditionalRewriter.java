@@ -3,6 +3,7 @@ package org.benf.cfr.reader.bytecode.analysis.opgraph.op3rewriters;
 import org.benf.cfr.reader.bytecode.analysis.parse.utils.Pair;
 import org.benf.cfr.reader.bytecode.analysis.opgraph.InstrIndex;
 import org.benf.cfr.reader.bytecode.analysis.opgraph.Op03SimpleStatement;
+import org.benf.cfr.reader.bytecode.analysis.opgraph.StatementIndex;
 import org.benf.cfr.reader.bytecode.analysis.parse.Expression;
 import org.benf.cfr.reader.bytecode.analysis.parse.LValue;
 import org.benf.cfr.reader.bytecode.analysis.parse.Statement;
@@ -43,25 +44,26 @@ public class ConditionalRewriter {
     public static void identifyNonjumpingConditionals(List<Op03SimpleStatement> statements, BlockIdentifierFactory blockIdentifierFactory) {
         boolean success;
         Set<Op03SimpleStatement> ignoreTheseJumps = SetFactory.newSet();
+        StatementIndex<Op03SimpleStatement> statementIndex = new StatementIndex<Op03SimpleStatement>(statements);
         do {
             success = false;
             List<Op03SimpleStatement> forwardIfs = Functional.filter(statements, new IsForwardIf());
             Collections.reverse(forwardIfs);
             for (Op03SimpleStatement forwardIf : forwardIfs) {
-                if (considerAsTrivialIf(forwardIf, statements) ||
-                        considerAsSimpleIf(forwardIf, statements, blockIdentifierFactory, ignoreTheseJumps) ||
-                        considerAsDexIf(forwardIf, statements)) {
+                if (considerAsTrivialIf(forwardIf, statements, statementIndex) ||
+                        considerAsSimpleIf(forwardIf, statements, statementIndex, blockIdentifierFactory, ignoreTheseJumps) ||
+                        considerAsDexIf(forwardIf, statements, statementIndex)) {
                     success = true;
                 }
             }
         } while (success);
     }
 
-    private static boolean considerAsTrivialIf(Op03SimpleStatement ifStatement, List<Op03SimpleStatement> statements) {
+    private static boolean considerAsTrivialIf(Op03SimpleStatement ifStatement, List<Op03SimpleStatement> statements, StatementIndex<Op03SimpleStatement> statementIndex) {
         Op03SimpleStatement takenTarget = ifStatement.getTargets().get(1);
         Op03SimpleStatement notTakenTarget = ifStatement.getTargets().get(0);
-        int idxTaken = statements.indexOf(takenTarget);
-        int idxNotTaken = statements.indexOf(notTakenTarget);
+        int idxTaken = statementIndex.indexOf(takenTarget);
+        int idxNotTaken = statementIndex.indexOf(notTakenTarget);
         if (idxTaken != idxNotTaken + 1) return false;
         if (!(takenTarget.getStatement().getClass() == GotoStatement.class &&
                 notTakenTarget.getStatement().getClass() == GotoStatement.class &&
@@ -100,15 +102,15 @@ public class ConditionalRewriter {
  *
  * Which, in turn, may allow us to make some more interesting choices later.
  */
-    private static boolean considerAsDexIf(Op03SimpleStatement ifStatement, List<Op03SimpleStatement> statements) {
+    private static boolean considerAsDexIf(Op03SimpleStatement ifStatement, List<Op03SimpleStatement> statements, StatementIndex<Op03SimpleStatement> statementIndex) {
         Statement innerStatement = ifStatement.getStatement();
         if (innerStatement.getClass() != IfStatement.class) {
             return false;
         }
         IfStatement innerIfStatement = (IfStatement) innerStatement;
 
-        int startIdx = statements.indexOf(ifStatement);
-        int bidx = statements.indexOf(ifStatement.getTargets().get(1));
+        int startIdx = statementIndex.indexOf(ifStatement);
+        int bidx = statementIndex.indexOf(ifStatement.getTargets().get(1));
         if (bidx <= startIdx) return false; // shouldn't happen.
         InstrIndex startIndex = ifStatement.getIndex();
         InstrIndex bIndex = ifStatement.getTargets().get(1).getIndex();
@@ -118,10 +120,10 @@ public class ConditionalRewriter {
 
         int aidx = startIdx + 1;
 
-        int cidx = findOverIdx(bidx, statements);
+        int cidx = findOverIdx(bidx, statements, statementIndex);
         if (cidx == -1) return false;
 
-        int didx = findOverIdx(cidx, statements);
+        int didx = findOverIdx(cidx, statements, statementIndex);
         if (didx == -1) return false;
 
         if (didx <= cidx) return false;
@@ -161,7 +163,7 @@ public class ConditionalRewriter {
     }
 
 
-    private static int findOverIdx(int startNext, List<Op03SimpleStatement> statements) {
+    private static int findOverIdx(int startNext, List<Op03SimpleStatement> statements, StatementIndex<Op03SimpleStatement> statementIndex) {
         /*
          * Find a forward goto before b.
          */
@@ -181,7 +183,7 @@ public class ConditionalRewriter {
             return -1;
         }
         if (cStatement == null) return -1;
-        int cidx = statements.indexOf(cStatement);
+        int cidx = statementIndex.indexOf(cStatement);
         return cidx;
     }
 
@@ -312,11 +314,11 @@ lbl10: // 1 sources:
     *
     * We trim that GOTO when we move from an UnstructuredIf to a StructuredIf.
     */
-    private static boolean considerAsSimpleIf(Op03SimpleStatement ifStatement, List<Op03SimpleStatement> statements, BlockIdentifierFactory blockIdentifierFactory, Set<Op03SimpleStatement> ignoreTheseJumps) {
+    private static boolean considerAsSimpleIf(Op03SimpleStatement ifStatement, List<Op03SimpleStatement> statements, StatementIndex<Op03SimpleStatement> statementIndex, BlockIdentifierFactory blockIdentifierFactory, Set<Op03SimpleStatement> ignoreTheseJumps) {
         Op03SimpleStatement takenTarget = ifStatement.getTargets().get(1);
         Op03SimpleStatement notTakenTarget = ifStatement.getTargets().get(0);
-        int idxTaken = statements.indexOf(takenTarget);
-        int idxNotTaken = statements.indexOf(notTakenTarget);
+        int idxTaken = statementIndex.indexOf(takenTarget);
+        int idxNotTaken = statementIndex.indexOf(notTakenTarget);
         IfStatement innerIfStatement = (IfStatement) ifStatement.getStatement();
 
         Set<Op03SimpleStatement> ignoreLocally = SetFactory.newSet();
@@ -458,7 +460,7 @@ lbl10: // 1 sources:
                     GotoStatement gotoStatement = (GotoStatement) mGotoStatement;
                     // It's unconditional, and it's a forward jump.
                     maybeElseEnd = statementCurrent.getTargets().get(0);
-                    maybeElseEndIdx = statements.indexOf(maybeElseEnd);
+                    maybeElseEndIdx = statementIndex.indexOf(maybeElseEnd);
                     if (maybeElseEnd.getIndex().compareTo(takenTarget.getIndex()) <= 0) {
                         return false;
                     }
@@ -2,6 +2,7 @@ package org.benf.cfr.reader.bytecode.analysis.opgraph.op3rewriters;
 
 import org.benf.cfr.reader.bytecode.analysis.opgraph.InstrIndex;
 import org.benf.cfr.reader.bytecode.analysis.opgraph.Op03SimpleStatement;
+import org.benf.cfr.reader.bytecode.analysis.opgraph.StatementIndex;
 import org.benf.cfr.reader.bytecode.analysis.parse.Statement;
 import org.benf.cfr.reader.bytecode.analysis.parse.expression.ConditionalExpression;
 import org.benf.cfr.reader.bytecode.analysis.parse.statement.*;
@@ -40,9 +41,10 @@ public class LoopIdentifier {
         // Verify that they belong to jump instructions (otherwise something has gone wrong)
         // (if, goto).
 
+        StatementIndex<Op03SimpleStatement> statementIndex = new StatementIndex<Op03SimpleStatement>(statements);
         List<Op03SimpleStatement> pathtests = Functional.filter(statements, new TypeFilter<GotoStatement>(GotoStatement.class));
         for (Op03SimpleStatement start : pathtests) {
-            considerAsPathologicalLoop(start, statements);
+            considerAsPathologicalLoop(start, statements, statementIndex);
         }
 
         List<Op03SimpleStatement> backjumps = Functional.filter(statements, new Misc.HasBackJump());
@@ -57,9 +59,9 @@ public class LoopIdentifier {
         List<LoopResult> loopResults = ListFactory.newList();
         Set<BlockIdentifier> relevantBlocks = SetFactory.newSet();
         for (Op03SimpleStatement start : starts) {
-            BlockIdentifier blockIdentifier = considerAsWhileLoopStart(method, start, statements, blockIdentifierFactory, blockEndsCache);
+            BlockIdentifier blockIdentifier = considerAsWhileLoopStart(method, start, statements, statementIndex, blockIdentifierFactory, blockEndsCache);
             if (blockIdentifier == null) {
-                blockIdentifier = considerAsDoLoopStart(start, statements, blockIdentifierFactory, blockEndsCache);
+                blockIdentifier = considerAsDoLoopStart(start, statements, statementIndex, blockIdentifierFactory, blockEndsCache);
             }
             if (blockIdentifier != null) {
                 loopResults.add(new LoopResult(blockIdentifier, start));
@@ -75,7 +77,7 @@ public class LoopIdentifier {
          *
          * Need to extend loop bodies and transform whiles into continues.
          */
-        fixLoopOverlaps(statements, loopResults, relevantBlocks);
+        fixLoopOverlaps(statements, statementIndex, loopResults, relevantBlocks);
     }
 
 
@@ -83,7 +85,7 @@ public class LoopIdentifier {
      * NOT, then we need to convert the last backjump into a continue / conditional continue,
      * and add a while (true). :P
      */
-    private static void fixLoopOverlaps(List<Op03SimpleStatement> statements, List<LoopResult> loopResults, Set<BlockIdentifier> relevantBlocks) {
+    private static void fixLoopOverlaps(List<Op03SimpleStatement> statements, StatementIndex<Op03SimpleStatement> statementIndex, List<LoopResult> loopResults, Set<BlockIdentifier> relevantBlocks) {
 
         Map<BlockIdentifier, List<BlockIdentifier>> requiredExtents = MapFactory.newLazyMap(new UnaryFunction<BlockIdentifier, List<BlockIdentifier>>() {
             @Override
@@ -162,8 +164,8 @@ public class LoopIdentifier {
              */
             Op03SimpleStatement oldEnd = lastForBlock.get(extendThis);
 
-            int start = statements.indexOf(oldEnd);
-            int end = statements.indexOf(extendTo);
+            int start = statementIndex.indexOf(oldEnd);
+            int end = statementIndex.indexOf(extendTo);
 
             for (int x = start; x <= end; ++x) {
                 statements.get(x).getBlockIdentifiers().add(extendThis);
@@ -203,7 +205,7 @@ public class LoopIdentifier {
     /*
  * To handle special case tricksiness.
  */
-    private static void considerAsPathologicalLoop(final Op03SimpleStatement start, List<Op03SimpleStatement> statements) {
+    private static void considerAsPathologicalLoop(final Op03SimpleStatement start, List<Op03SimpleStatement> statements, StatementIndex<Op03SimpleStatement> statementIndex) {
         if (start.getStatement().getClass() != GotoStatement.class) return;
         if (start.getTargets().get(0) != start) return;
         Op03SimpleStatement next = new Op03SimpleStatement(start.getBlockIdentifiers(), new GotoStatement(), start.getIndex().justAfter());
@@ -212,10 +214,11 @@ public class LoopIdentifier {
         start.replaceSource(start, next);
         next.addSource(start);
         next.addTarget(start);
-        statements.add(statements.indexOf(start) + 1, next);
+        statements.add(statementIndex.indexOf(start) + 1, next);
     }
 
     private static BlockIdentifier considerAsDoLoopStart(final Op03SimpleStatement start, final List<Op03SimpleStatement> statements,
+                                                         final StatementIndex<Op03SimpleStatement> statementIndex,
                                                          BlockIdentifierFactory blockIdentifierFactory,
                                                          Map<BlockIdentifier, Op03SimpleStatement> postBlockCache) {
 
@@ -260,8 +263,8 @@ public class LoopIdentifier {
         }
 //        if (!conditional) return false;
 
-        int startIdx = statements.indexOf(start);
-        int endIdx = statements.indexOf(lastJump);
+        int startIdx = statementIndex.indexOf(start);
+        int endIdx = statementIndex.indexOf(lastJump);
 
         if (startIdx >= endIdx) return null;
 
@@ -319,11 +322,11 @@ public class LoopIdentifier {
                 oldTaken.replaceSource(lastJump, newBackJump);
                 newBackJump.addSource(lastJump);
                 newBackJump.addTarget(oldTaken);
-                statements.add(statements.indexOf(oldFallthrough), newBackJump);
+                statements.add(statementIndex.indexOf(oldFallthrough), newBackJump);
                 lastJump = newBackJump;
             }
 
-            int newIdx = statements.indexOf(lastJump) + 1;
+            int newIdx = statementIndex.indexOf(lastJump) + 1;
 
             if (newIdx >= statements.size()) {
                 postBlock = new Op03SimpleStatement(SetFactory.<BlockIdentifier>newSet(), new ReturnNothingStatement(), lastJump.getIndex().justAfter());
@@ -372,7 +375,7 @@ public class LoopIdentifier {
             // internalTryBlocks represents try blocks which started AFTER the loop did.
             if (internalTryBlocks.isEmpty()) break shuntLoop;
 
-            final int postBlockIdx = statements.indexOf(postBlock);
+            final int postBlockIdx = statementIndex.indexOf(postBlock);
             int lastPostBlock = postBlockIdx;
             do {
                 if (lastPostBlock + 1 >= statements.size()) break;
@@ -450,7 +453,7 @@ public class LoopIdentifier {
             }
         }
 
-        statements.add(statements.indexOf(start), doStatement);
+        statements.add(statementIndex.indexOf(start), doStatement);
         lastJump.markBlockStatement(blockIdentifier, null, lastJump, statements);
         start.markFirstStatementInBlock(blockIdentifier);
 
@@ -469,6 +472,7 @@ public class LoopIdentifier {
     */
     private static BlockIdentifier considerAsWhileLoopStart(@SuppressWarnings("unused") final Method method,
                                                             final Op03SimpleStatement start, final List<Op03SimpleStatement> statements,
+                                                            final StatementIndex<Op03SimpleStatement> statementIndex,
                                                             BlockIdentifierFactory blockIdentifierFactory,
                                                             Map<BlockIdentifier, Op03SimpleStatement> postBlockCache) {
         final InstrIndex startIndex = start.getIndex();
@@ -528,7 +532,7 @@ public class LoopIdentifier {
             conditional.replaceTarget(conditional, notTaken);
             backJump.addSource(conditional);
             backJump.addTarget(conditional);
-            statements.add(statements.indexOf(conditional) + 1, backJump);
+            statements.add(statementIndex.indexOf(conditional) + 1, backJump);
             loopBreak = notTaken;
         }
 
@@ -544,7 +548,7 @@ public class LoopIdentifier {
             // We'll have problems - there are actions taken inside the conditional.
             return null;
         }
-        int idxConditional = statements.indexOf(start);
+        int idxConditional = statementIndex.indexOf(start);
 
         /* If this loop has a test at the bottom, we may have a continue style exit, i.e. the loopBreak
          * is not just reachable from the top.  We can find this by seeing if loopBreak is reachable from
@@ -557,7 +561,7 @@ public class LoopIdentifier {
          * and verify that it's reachable from conditional, WITHOUT going through start.
          * If so, we guess that it's the end of the loop.
          */
-        int idxAfterEnd = statements.indexOf(loopBreak);
+        int idxAfterEnd = statementIndex.indexOf(loopBreak);
         if (idxAfterEnd < idxConditional) {
             /*
              * We've got an inner loop which is terminating back to the start of the outer loop.
@@ -578,7 +582,7 @@ public class LoopIdentifier {
             if (endOfOuter == null) {
                 throw new ConfusedCFRException("BlockIdentifier doesn't exist in blockEndsCache");
             }
-            idxAfterEnd = statements.indexOf(endOfOuter);
+            idxAfterEnd = statementIndex.indexOf(endOfOuter);
         }
 
         /* TODO : ORDERCHEAT */
@@ -2,12 +2,15 @@ package org.benf.cfr.reader.bytecode.analysis.opgraph.op3rewriters;
 
 import org.benf.cfr.reader.bytecode.AnonymousClassUsage;
 import org.benf.cfr.reader.bytecode.analysis.opgraph.Op03SimpleStatement;
+import org.benf.cfr.reader.bytecode.analysis.parse.rewriters.CompositeExpressionRewriter;
 import org.benf.cfr.reader.bytecode.analysis.parse.rewriters.ExpressionRewriter;
+import org.benf.cfr.reader.bytecode.analysis.parse.rewriters.LocalExpressionRewriter;
 import org.benf.cfr.reader.bytecode.analysis.parse.rewriters.StackVarToLocalRewriter;
 import org.benf.cfr.reader.bytecode.analysis.parse.statement.IfStatement;
 import org.benf.cfr.reader.bytecode.analysis.parse.utils.BlockIdentifierFactory;
 import org.benf.cfr.reader.entities.Method;
 import org.benf.cfr.reader.state.DCCommonState;
+import org.benf.cfr.reader.util.AnalysisBudget;
 import org.benf.cfr.reader.util.ClassFileVersion;
 import org.benf.cfr.reader.util.collections.Functional;
 import org.benf.cfr.reader.util.getopt.Options;
@@ -16,11 +19,21 @@ import java.util.List;
 
 public class Op03Rewriters {
     public static void rewriteWith(List<Op03SimpleStatement> in, ExpressionRewriter expressionRewriter) {
+        AnalysisBudget.check();
         for (Op03SimpleStatement op03SimpleStatement : in) {
             op03SimpleStatement.rewrite(expressionRewriter);
         }
     }
 
+    /*
+     * As rewriteWith each in turn, but in a single pass.
+     */
+    public static void rewriteWith(List<Op03SimpleStatement> in, LocalExpressionRewriter... expressionRewriters) {
+        CompositeExpressionRewriter composite = new CompositeExpressionRewriter(expressionRewriters);
+        if (composite.isEmpty()) return;
+        rewriteWith(in, composite);
+    }
+
     public static void simplifyConditionals(List<Op03SimpleStatement> op03SimpleParseNodes, boolean aggressive, Method method) {
         ConditionalSimplifier.simplifyConditionals(op03SimpleParseNodes, aggressive, method);
     }
@@ -162,7 +162,8 @@ public class RecordRewriter {
 
     private static void hideEquals(ClassFile classFile, JavaTypeInstance thisType, List<ClassFileField> fields) {
         Method method = getMethod(classFile, Collections.<JavaTypeInstance>singletonList(TypeConstants.OBJECT), MiscConstants.EQUALS);
-        if (method == null) return;
+        StructuredStatement item = getSingleReturn(method);
+        if (item == null) return;
 
         WildcardMatch wcm = new WildcardMatch();
         StructuredStatement stm = new StructuredReturn(new CastExpression(new InferredJavaType(RawJavaType.BOOLEAN, InferredJavaType.Source.TEST),
@@ -172,12 +173,13 @@ public class RecordRewriter {
                         wcm.getExpressionWildCard("this"),
                         new LValueExpression(method.getMethodPrototype().getComputedParameters().get(0)))), RawJavaType.BOOLEAN);
 
-        hideIfMatch(thisType, fields, method, wcm, stm);
+        hideIfMatch(thisType, fields, method, wcm, stm, item);
     }
 
     private static void hideToString(ClassFile classFile, JavaTypeInstance thisType, List<ClassFileField> fields) {
         Method method = getMethod(classFile, Collections.<JavaTypeInstance>emptyList(), MiscConstants.TOSTRING);
-        if (method == null) return;
+        StructuredStatement item = getSingleReturn(method);
+        if (item == null) return;
 
         WildcardMatch wcm = new WildcardMatch();
         StructuredStatement stm = new StructuredReturn(
@@ -186,12 +188,13 @@ public class RecordRewriter {
                         wcm.getExpressionWildCard("array"),
                         wcm.getExpressionWildCard("this")), TypeConstants.STRING);
 
-        hideIfMatch(thisType, fields, method, wcm, stm);
+        hideIfMatch(thisType, fields, method, wcm, stm, item);
     }
 
     private static void hideHashCode(ClassFile classFile, JavaTypeInstance thisType, List<ClassFileField> fields) {
         Method method = getMethod(classFile, Collections.<JavaTypeInstance>emptyList(), MiscConstants.HASHCODE);
-        if (method == null) return;
+        StructuredStatement item = getSingleReturn(method);
+        if (item == null) return;
 
         WildcardMatch wcm = new WildcardMatch();
         StructuredStatement stm = new StructuredReturn(new CastExpression(new InferredJavaType(RawJavaType.INT, InferredJavaType.Source.TEST),
@@ -200,11 +203,10 @@ public class RecordRewriter {
                         wcm.getExpressionWildCard("array"),
                         wcm.getExpressionWildCard("this"))), RawJavaType.INT);
 
-        hideIfMatch(thisType, fields, method, wcm, stm);
+        hideIfMatch(thisType, fields, method, wcm, stm, item);
     }
 
-    private static void hideIfMatch(JavaTypeInstance thisType, List<ClassFileField> fields, Method method, WildcardMatch wcm, StructuredStatement stm) {
-        StructuredStatement item = getSingleCodeLine(method);
+    private static void hideIfMatch(JavaTypeInstance thisType, List<ClassFileField> fields, Method method, WildcardMatch wcm, StructuredStatement stm, StructuredStatement item) {
         if (!stm.equals(item)) return;
         if (!cmpArgsEq(wcm.getExpressionWildCard("array").getMatch(), thisType, fields)) return;
         if (!isThis(wcm.getExpressionWildCard("this").getMatch(), thisType)) return;
@@ -284,8 +286,16 @@ public class RecordRewriter {
         return content.getValue().getStatement();
     }
 
-    private static void hideDefaultGetter(Method method, ClassFileField classFileField, JavaRefTypeInstance thisType) {
+    /*
+     * Everything we hide is a single return - check that before building a pattern to compare against.
+     */
+    private static StructuredStatement getSingleReturn(Method method) {
         StructuredStatement item = getSingleCodeLine(method);
+        return item instanceof StructuredReturn ? item : null;
+    }
+
+    private static void hideDefaultGetter(Method method, ClassFileField classFileField, JavaRefTypeInstance thisType) {
+        StructuredStatement item = getSingleReturn(method);
         if (item == null) return;
         WildcardMatch wcm = new WildcardMatch();
         StructuredStatement s = new StructuredReturn(new LValueExpression(wcm.getLValueWildCard("var")), classFileField.getField().getJavaTypeInstance());
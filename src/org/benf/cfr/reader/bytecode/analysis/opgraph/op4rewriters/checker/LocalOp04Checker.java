@@ -0,0 +1,10 @@
+package org.benf.cfr.reader.bytecode.analysis.opgraph.op4rewriters.checker;
+
+import org.benf.cfr.reader.bytecode.analysis.opgraph.op4rewriters.transformers.LocalStructuredStatementTransformer;
+
+/*
+ * A checker which only looks at one statement at a time, so it can be run together with others
+ * (transformLocal checks, transform checks and descends).
+ */
+public interface LocalOp04Checker extends Op04Checker, LocalStructuredStatementTransformer {
+}
@@ -7,21 +7,28 @@ import org.benf.cfr.reader.bytecode.analysis.structured.statement.StructuredTry;
 import org.benf.cfr.reader.util.DecompilerComment;
 import org.benf.cfr.reader.util.DecompilerComments;
 
-public class LooseCatchChecker implements Op04Checker {
+public class LooseCatchChecker implements LocalOp04Checker {
     private boolean looseCatch = false;
 
     @Override
     public StructuredStatement transform(StructuredStatement in, StructuredScope scope) {
+        if (looseCatch) return in;
+        transformLocal(in, scope);
+        if (looseCatch) return in;
+        in.transformStructuredChildren(this, scope);
+        return in;
+    }
+
+    @Override
+    public StructuredStatement transformLocal(StructuredStatement in, StructuredScope scope) {
         if (looseCatch) return in;
         if (in instanceof StructuredCatch) {
             // Then we require the scope above this to be a try, otherwise it's an issue.
             StructuredStatement outer = scope.get(1);
             if (!(outer instanceof StructuredTry)) {
                 looseCatch = true;
-                return in;
             }
         }
-        in.transformStructuredChildren(this, scope);
         return in;
     }
 
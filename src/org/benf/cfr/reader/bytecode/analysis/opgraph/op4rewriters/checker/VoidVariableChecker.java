@@ -8,21 +8,28 @@ import org.benf.cfr.reader.bytecode.analysis.types.discovery.InferredJavaType;
 import org.benf.cfr.reader.util.DecompilerComment;
 import org.benf.cfr.reader.util.DecompilerComments;
 
-public class VoidVariableChecker implements Op04Checker {
+public class VoidVariableChecker implements LocalOp04Checker {
     private boolean found = false;
 
     @Override
     public StructuredStatement transform(StructuredStatement in, StructuredScope scope) {
+        if (found) return in;
+        transformLocal(in, scope);
+        if (found) return in;
+
+        in.transformStructuredChildren(this, scope);
+        return in;
+    }
+
+    @Override
+    public StructuredStatement transformLocal(StructuredStatement in, StructuredScope scope) {
         if (found) return in;
         if (in instanceof StructuredDefinition) {
             InferredJavaType inferredJavaType = ((StructuredDefinition) in).getLvalue().getInferredJavaType();
             if (inferredJavaType != null && inferredJavaType.getJavaTypeInstance().getRawTypeOfSimpleType() == RawJavaType.VOID) {
                 found = true;
-                return in;
             }
         }
-
-        in.transformStructuredChildren(this, scope);
         return in;
     }
 
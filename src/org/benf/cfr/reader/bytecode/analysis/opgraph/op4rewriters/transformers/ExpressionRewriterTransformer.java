@@ -5,7 +5,7 @@ import org.benf.cfr.reader.bytecode.analysis.parse.rewriters.ExpressionRewriter;
 import org.benf.cfr.reader.bytecode.analysis.structured.StructuredScope;
 import org.benf.cfr.reader.bytecode.analysis.structured.StructuredStatement;
 
-public class ExpressionRewriterTransformer implements StructuredStatementTransformer {
+public class ExpressionRewriterTransformer implements StructuredStatementTransformer, LocalStructuredStatementTransformer {
     private final ExpressionRewriter expressionRewriter;
 
     public ExpressionRewriterTransformer(ExpressionRewriter expressionRewriter) {
@@ -21,8 +21,14 @@ public class ExpressionRewriterTransformer implements StructuredStatementTransfo
     public StructuredStatement transform(StructuredStatement in, StructuredScope scope) {
         // This is incapable of fundamentally changing the statement type.
         // Need a different rewriter if we're going to do that.
-        in.rewriteExpressions(expressionRewriter);
+        transformLocal(in, scope);
         in.transformStructuredChildren(this, scope);
         return in;
     }
+
+    @Override
+    public StructuredStatement transformLocal(StructuredStatement in, StructuredScope scope) {
+        in.rewriteExpressions(expressionRewriter);
+        return in;
+    }
 }
@@ -0,0 +1,38 @@
+package org.benf.cfr.reader.bytecode.analysis.opgraph.op4rewriters.transformers;
+
+import org.benf.cfr.reader.bytecode.analysis.opgraph.Op04StructuredStatement;
+import org.benf.cfr.reader.bytecode.analysis.structured.StructuredScope;
+import org.benf.cfr.reader.bytecode.analysis.structured.StructuredStatement;
+import org.benf.cfr.reader.util.collections.ListFactory;
+
+import java.util.List;
+
+/*
+ * Runs several local transformers in one walk of the tree, rather than one each.
+ *
+ * Each statement gets every transformer, in the order given, after its children.  As the transformers are local,
+ * that gives the same result as running them one after another over the whole tree - and as the walk is
+ * post order, statements are still visited in the same order as a post order transformer would see them
+ * (which matters for anything that allocates names as it goes).
+ */
+public class FusedStructuredTransformer implements StructuredStatementTransformer {
+    private final List<LocalStructuredStatementTransformer> transformers;
+
+    public FusedStructuredTransformer(LocalStructuredStatementTransformer... transformers) {
+        this.transformers = ListFactory.newImmutableList(transformers);
+    }
+
+    public void transform(Op04StructuredStatement root) {
+        StructuredScope structuredScope = new StructuredScope();
+        root.transform(this, structuredScope);
+    }
+
+    @Override
+    public StructuredStatement transform(StructuredStatement in, StructuredScope scope) {
+        in.transformStructuredChildren(this, scope);
+        for (LocalStructuredStatementTransformer transformer : transformers) {
+            in = transformer.transformLocal(in, scope);
+        }
+        return in;
+    }
+}
@@ -0,0 +1,16 @@
+package org.benf.cfr.reader.bytecode.analysis.opgraph.op4rewriters.transformers;
+
+import org.benf.cfr.reader.bytecode.analysis.structured.StructuredScope;
+import org.benf.cfr.reader.bytecode.analysis.structured.StructuredStatement;
+
+/*
+ * A transformer whose work on a statement only involves that statement (its expressions, or replacing it) -
+ * it doesn't look at or change the rest of the tree, and doesn't care whether it's called before or after
+ * the statement's children.
+ *
+ * Implementing this is a promise that the transformer commutes with any other local transformer applied to
+ * other statements, so several can share a single walk - see FusedStructuredTransformer.
+ */
+public interface LocalStructuredStatementTransformer {
+    StructuredStatement transformLocal(StructuredStatement in, StructuredScope scope);
+}
@@ -44,10 +44,50 @@ import java.util.Set;
     }
  */
 public class TryResourcesTransformerJ12 extends TryResourcesTransformerBase {
+    /*
+     * Built on first use, then shared by every try in the method - ResetAfterTest clears the bindings.
+     */
+    private Matcher<StructuredStatement> simpleMatcher;
+    private Matcher<StructuredStatement> complexMatcher;
+
     public TryResourcesTransformerJ12(ClassFile classFile) {
         super(classFile);
     }
 
+    private Matcher<StructuredStatement> getSimpleMatcher() {
+        if (simpleMatcher != null) return simpleMatcher;
+        WildcardMatch wcm = new WildcardMatch();
+        WildcardMatch.LValueWildcard throwableLValue = wcm.getLValueWildCard("throwable");
+        WildcardMatch.LValueWildcard autoclose = wcm.getLValueWildCard("resource");
+
+        simpleMatcher =
+                new ResetAfterTest(wcm,
+                        new MatchSequence(
+                                new BeginBlock(null),
+                                ResourceReleaseDetector.getSimpleStructuredStatementMatcher(wcm, throwableLValue, autoclose),
+                                new EndBlock(null)
+                        )
+                );
+        return simpleMatcher;
+    }
+
+    private Matcher<StructuredStatement> getComplexMatcher() {
+        if (complexMatcher != null) return complexMatcher;
+        WildcardMatch wcm = new WildcardMatch();
+        WildcardMatch.LValueWildcard throwableLValue = wcm.getLValueWildCard("throwable");
+        WildcardMatch.LValueWildcard autoclose = wcm.getLValueWildCard("resource");
+
+        complexMatcher =
+                new ResetAfterTest(wcm,
+                        new MatchSequence(
+                            new BeginBlock(null),
+                            ResourceReleaseDetector.getNonTestingStructuredStatementMatcher(wcm, throwableLValue, autoclose),
+                            new EndBlock(null)
+                        )
+                );
+        return complexMatcher;
+    }
+
 
     @Override
     protected boolean rewriteTry(StructuredTry structuredTry, StructuredScope scope, ResourceMatch resourceMatch) {
@@ -71,21 +111,10 @@ public class TryResourcesTransformerJ12 extends TryResourcesTransformerBase {
     private ResourceMatch getSimpleResourceMatch(StructuredTry structuredTry, StructuredScope scope) {
         Op04StructuredStatement finallyBlock = structuredTry.getFinallyBlock();
 
-        WildcardMatch wcm = new WildcardMatch();
         List<StructuredStatement> structuredStatements = MiscStatementTools.linearise(finallyBlock);
         if (structuredStatements == null) return null;
 
-        WildcardMatch.LValueWildcard throwableLValue = wcm.getLValueWildCard("throwable");
-        WildcardMatch.LValueWildcard autoclose = wcm.getLValueWildCard("resource");
-
-        Matcher<StructuredStatement> m =
-                new ResetAfterTest(wcm,
-                        new MatchSequence(
-                                new BeginBlock(null),
-                                ResourceReleaseDetector.getSimpleStructuredStatementMatcher(wcm, throwableLValue, autoclose),
-                                new EndBlock(null)
-                        )
-                );
+        Matcher<StructuredStatement> m = getSimpleMatcher();
 
         MatchIterator<StructuredStatement> mi = new MatchIterator<StructuredStatement>(structuredStatements);
         TryResourcesMatchResultCollector collector = new TryResourcesMatchResultCollector();
@@ -107,21 +136,10 @@ public class TryResourcesTransformerJ12 extends TryResourcesTransformerBase {
         JavaTypeInstance caughtType = catchStatement.getCatchTypes().get(0);
         if (!TypeConstants.THROWABLE.equals(caughtType)) return null;
 
-        WildcardMatch wcm = new WildcardMatch();
         List<StructuredStatement> structuredStatements = MiscStatementTools.linearise(catchBlock);
         if (structuredStatements == null) return null;
 
-        WildcardMatch.LValueWildcard throwableLValue = wcm.getLValueWildCard("throwable");
-        WildcardMatch.LValueWildcard autoclose = wcm.getLValueWildCard("resource");
-
-        Matcher<StructuredStatement> m =
-                new ResetAfterTest(wcm,
-                        new MatchSequence(
-                            new BeginBlock(null),
-                            ResourceReleaseDetector.getNonTestingStructuredStatementMatcher(wcm, throwableLValue, autoclose),
-                            new EndBlock(null)
-                        )
-                );
+        Matcher<StructuredStatement> m = getComplexMatcher();
 
         MatchIterator<StructuredStatement> mi = new MatchIterator<StructuredStatement>(structuredStatements);
 
@@ -135,9 +153,9 @@ public class TryResourcesTransformerJ12 extends TryResourcesTransformerBase {
          * structured.
          * It could be either after the catch, or at the last statement of the try.
          */
-        List<Op04StructuredStatement> toRemove = getCloseStatementAfter(structuredTry, scope, wcm, collector);
+        List<Op04StructuredStatement> toRemove = getCloseStatementAfter(structuredTry, scope, collector);
         if (toRemove == null) {
-            toRemove = getCloseStatementEndTry(structuredTry, scope, wcm, collector);
+            toRemove = getCloseStatementEndTry(structuredTry, scope, collector);
             if (toRemove == null) {
                 return null;
             }
@@ -145,19 +163,19 @@ public class TryResourcesTransformerJ12 extends TryResourcesTransformerBase {
         return new ResourceMatch(null, collector.resource, collector.throwable, false, toRemove);
     }
 
-    private List<Op04StructuredStatement> getCloseStatementEndTry(StructuredTry structuredTry, StructuredScope scope, WildcardMatch wcm, TryResourcesMatchResultCollector collector) {
+    private List<Op04StructuredStatement> getCloseStatementEndTry(StructuredTry structuredTry, StructuredScope scope, TryResourcesMatchResultCollector collector) {
         Op04StructuredStatement tryb = structuredTry.getTryBlock();
         StructuredStatement tryStm = tryb.getStatement();
         if (!(tryStm instanceof Block)) return null;
         Block block = (Block)tryStm;
         Op04StructuredStatement lastInBlock = block.getLast();
-        if (getMatchingCloseStatement(wcm, collector, lastInBlock.getStatement())) {
+        if (getMatchingCloseStatement(collector, lastInBlock.getStatement())) {
             return Collections.singletonList(lastInBlock);
         }
         return null;
     }
 
-    private List<Op04StructuredStatement> getCloseStatementAfter(StructuredTry structuredTry, StructuredScope scope, WildcardMatch wcm, TryResourcesMatchResultCollector collector) {
+    private List<Op04StructuredStatement> getCloseStatementAfter(StructuredTry structuredTry, StructuredScope scope, TryResourcesMatchResultCollector collector) {
         Set<Op04StructuredStatement> next = scope.getNextFallThrough(structuredTry);
 
         List<Op04StructuredStatement> toRemove = Functional.filter(next, new Predicate<Op04StructuredStatement>() {
@@ -170,13 +188,17 @@ public class TryResourcesTransformerJ12 extends TryResourcesTransformerBase {
 
         StructuredStatement statement = toRemove.get(0).getStatement();
 
-        if (getMatchingCloseStatement(wcm, collector, statement)) {
+        if (getMatchingCloseStatement(collector, statement)) {
             return toRemove;
         }
         return null;
     }
 
-    private boolean getMatchingCloseStatement(WildcardMatch wcm, TryResourcesMatchResultCollector collector, StructuredStatement statement) {
+    /*
+     * This one can't be shared - it's built around the resource we've just matched.
+     */
+    private boolean getMatchingCloseStatement(TryResourcesMatchResultCollector collector, StructuredStatement statement) {
+        WildcardMatch wcm = new WildcardMatch();
         Matcher<StructuredStatement> checkClose = ResourceReleaseDetector.getCloseExpressionMatch(wcm, new LValueExpression(collector.resource));
         MatchIterator<StructuredStatement> closeStm = new MatchIterator<StructuredStatement>(Collections.singletonList(statement));
 
@@ -16,27 +16,25 @@ import org.benf.cfr.reader.entities.ClassFile;
 import java.util.List;
 
 public class TryResourcesTransformerJ7 extends TryResourceTransformerFinally {
+    /*
+     * Built on first use, then shared by every finally in the method - ResetAfterTest clears the bindings.
+     */
+    private Matcher<StructuredStatement> matcher;
+
     public TryResourcesTransformerJ7(ClassFile classFile) {
         super(classFile);
     }
 
-    @Override
-    protected ResourceMatch findResourceFinally(Op04StructuredStatement finallyBlock) {
-        if (finallyBlock == null) return null;
-        StructuredFinally finalli = (StructuredFinally)finallyBlock.getStatement();
-        Op04StructuredStatement content = finalli.getCatchBlock();
-
+    private Matcher<StructuredStatement> getMatcher() {
+        if (matcher != null) return matcher;
         WildcardMatch wcm = new WildcardMatch();
-        List<StructuredStatement> structuredStatements = MiscStatementTools.linearise(content);
-        if (structuredStatements == null) return null;
-
         WildcardMatch.LValueWildcard throwableLValue = wcm.getLValueWildCard("throwable");
         WildcardMatch.LValueWildcard autoclose = wcm.getLValueWildCard("resource");
 
         Matcher<StructuredStatement> subMatch = ResourceReleaseDetector.getStructuredStatementMatcher(wcm, throwableLValue, autoclose);
 
         //noinspection unchecked
-        Matcher<StructuredStatement> m = new MatchOneOf(
+        matcher = new MatchOneOf(
                 new ResetAfterTest(wcm,
                     new MatchSequence(
                         new BeginBlock(null),
@@ -46,7 +44,19 @@ public class TryResourcesTransformerJ7 extends TryResourceTransformerFinally {
                     )
                 ),
                 new ResetAfterTest(wcm, subMatch));
+        return matcher;
+    }
+
+    @Override
+    protected ResourceMatch findResourceFinally(Op04StructuredStatement finallyBlock) {
+        if (finallyBlock == null) return null;
+        StructuredFinally finalli = (StructuredFinally)finallyBlock.getStatement();
+        Op04StructuredStatement content = finalli.getCatchBlock();
+
+        List<StructuredStatement> structuredStatements = MiscStatementTools.linearise(content);
+        if (structuredStatements == null) return null;
 
+        Matcher<StructuredStatement> m = getMatcher();
         MatchIterator<StructuredStatement> mi = new MatchIterator<StructuredStatement>(structuredStatements);
 
         TryResourcesMatchResultCollector collector = new TryResourcesMatchResultCollector();
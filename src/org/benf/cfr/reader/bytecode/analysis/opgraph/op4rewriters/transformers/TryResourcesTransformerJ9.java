@@ -23,25 +23,42 @@ import org.benf.cfr.reader.entities.Method;
 import java.util.List;
 
 public class TryResourcesTransformerJ9 extends TryResourceTransformerFinally {
+    /*
+     * Built on first use - most methods have no finally blocks at all.  The pattern only depends on the class,
+     * and ResetAfterTest clears the bindings after each test, so one does for every finally in the method.
+     */
+    private Matcher<StructuredStatement> matcher;
+    private Boolean hasEndResource;
+
     public TryResourcesTransformerJ9(ClassFile classFile) {
         super(classFile);
     }
 
-    @Override
-    protected ResourceMatch findResourceFinally(Op04StructuredStatement finallyBlock) {
-        if (finallyBlock == null) return null;
-        StructuredFinally finalli = (StructuredFinally)finallyBlock.getStatement();
-        Op04StructuredStatement content = finalli.getCatchBlock();
+    /*
+     * We can only ever succeed if the class has a synthetic close helper, so don't bother matching otherwise.
+     */
+    private boolean hasEndResource() {
+        if (hasEndResource == null) {
+            hasEndResource = false;
+            for (Method method : getClassFile().getMethods()) {
+                if (method.getAccessFlags().contains(AccessFlagMethod.ACC_FAKE_END_RESOURCE)) {
+                    hasEndResource = true;
+                    break;
+                }
+            }
+        }
+        return hasEndResource;
+    }
 
+    private Matcher<StructuredStatement> getMatcher() {
+        if (matcher != null) return matcher;
         WildcardMatch wcm = new WildcardMatch();
-        List<StructuredStatement> structuredStatements = MiscStatementTools.linearise(content);
-        if (structuredStatements == null) return null;
 
         InferredJavaType inferredThrowable = new InferredJavaType(TypeConstants.THROWABLE, InferredJavaType.Source.LITERAL, true);
         InferredJavaType inferredAutoclosable = new InferredJavaType(TypeConstants.AUTO_CLOSEABLE, InferredJavaType.Source.LITERAL, true);
         JavaTypeInstance clazzType = getClassFile().getClassType();
 
-        Matcher<StructuredStatement> m = new ResetAfterTest(wcm, new MatchOneOf(
+        matcher = new ResetAfterTest(wcm, new MatchOneOf(
                 new MatchSequence(
                         new BeginBlock(null),
                         new StructuredIf(new ComparisonOperation(wcm.getExpressionWildCard("resource"), Literal.NULL, CompOp.NE), null),
@@ -64,6 +81,20 @@ public class TryResourcesTransformerJ9 extends TryResourceTransformerFinally {
                         new EndBlock(null)
                 )
         ));
+        return matcher;
+    }
+
+    @Override
+    protected ResourceMatch findResourceFinally(Op04StructuredStatement finallyBlock) {
+        if (finallyBlock == null) return null;
+        if (!hasEndResource()) return null;
+        StructuredFinally finalli = (StructuredFinally)finallyBlock.getStatement();
+        Op04StructuredStatement content = finalli.getCatchBlock();
+
+        List<StructuredStatement> structuredStatements = MiscStatementTools.linearise(content);
+        if (structuredStatements == null) return null;
+
+        Matcher<StructuredStatement> m = getMatcher();
         MatchIterator<StructuredStatement> mi = new MatchIterator<StructuredStatement>(structuredStatements);
 
         TryResourcesMatchResultCollector collector = new TryResourcesMatchResultCollector();
@@ -1,5 +1,6 @@
 package org.benf.cfr.reader.bytecode.analysis.opgraph.op4rewriters.transformers;
 
+import org.benf.cfr.reader.bytecode.analysis.opgraph.InstrOffsetTable;
 import org.benf.cfr.reader.bytecode.analysis.opgraph.Op04StructuredStatement;
 import org.benf.cfr.reader.bytecode.analysis.parse.Expression;
 import org.benf.cfr.reader.bytecode.analysis.parse.LValue;
@@ -25,7 +26,6 @@ import org.benf.cfr.reader.util.functors.Predicate;
 
 import java.util.Collections;
 import java.util.List;
-import java.util.SortedMap;
 
 import static org.benf.cfr.reader.entities.attributes.TypeAnnotationEntryValue.*;
 
@@ -34,10 +34,10 @@ public class TypeAnnotationTransformer implements StructuredStatementTransformer
     private List<AnnotationTableTypeEntry> variableAnnotations;
     private List<AnnotationTableTypeEntry> catchAnnotations;
 
-    private final SortedMap<Integer, Integer> instrsByOffset;
+    private final InstrOffsetTable instrsByOffset;
     private final DecompilerComments comments;
 
-    public TypeAnnotationTransformer(AttributeTypeAnnotations vis, AttributeTypeAnnotations invis, SortedMap<Integer, Integer> instrsByOffset, DecompilerComments comments) {
+    public TypeAnnotationTransformer(AttributeTypeAnnotations vis, AttributeTypeAnnotations invis, InstrOffsetTable instrsByOffset, DecompilerComments comments) {
         this.instrsByOffset = instrsByOffset;
         this.comments = comments;
         this.variableAnnotations = ListFactory.combinedOptimistic(
@@ -126,8 +126,7 @@ public class TypeAnnotationTransformer implements StructuredStatementTransformer
                 if (offset < 0 || slot < 0) continue;
 
                 // We allow instruction BEFORE offset.
-                SortedMap<Integer, Integer> heapMap = instrsByOffset.headMap(offset);
-                int offsetTolerance = heapMap.isEmpty() ? 1 : offset - heapMap.lastKey();
+                int offsetTolerance = instrsByOffset.getDistanceToPrecedingInstr(offset);
 
                 List<AnnotationTableTypeEntry> entries = getLocalVariableAnnotations(offset, slot, offsetTolerance);
                 if (entries == null || entries.isEmpty()) continue;
@@ -1,6 +1,7 @@
 package org.benf.cfr.reader.bytecode.analysis.opgraph.op4rewriters.util;
 
 import org.benf.cfr.reader.bytecode.analysis.opgraph.Op04StructuredStatement;
+import org.benf.cfr.reader.bytecode.analysis.parse.Expression;
 import org.benf.cfr.reader.bytecode.analysis.parse.expression.LValueExpression;
 import org.benf.cfr.reader.bytecode.analysis.parse.expression.MemberFunctionInvokation;
 import org.benf.cfr.reader.bytecode.analysis.parse.wildcard.WildcardMatch;
@@ -21,6 +22,10 @@ public class ConstructorUtils {
             if (structuredStatement instanceof StructuredComment) continue;
             if (!(structuredStatement instanceof StructuredExpressionStatement)) return null;
             StructuredExpressionStatement structuredExpressionStatement = (StructuredExpressionStatement) structuredStatement;
+            // Only a this(...) / super(...) call can match - don't build the pattern for anything else.
+            Expression expression = structuredExpressionStatement.getExpression();
+            if (!(expression instanceof MemberFunctionInvokation)) return null;
+            if (!((MemberFunctionInvokation) expression).isInitMethod()) return null;
 
             WildcardMatch wcm1 = new WildcardMatch();
             StructuredStatement test = new StructuredExpressionStatement(wcm1.getMemberFunction("m", null, true /* this method */, new LValueExpression(wcm1.getLValueWildCard("o")), null), false);
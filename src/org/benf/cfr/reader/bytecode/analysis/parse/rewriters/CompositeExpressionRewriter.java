@@ -0,0 +1,47 @@
+package org.benf.cfr.reader.bytecode.analysis.parse.rewriters;
+
+import org.benf.cfr.reader.bytecode.analysis.parse.Expression;
+import org.benf.cfr.reader.bytecode.analysis.parse.StatementContainer;
+import org.benf.cfr.reader.bytecode.analysis.parse.expression.ConditionalExpression;
+import org.benf.cfr.reader.bytecode.analysis.parse.utils.SSAIdentifiers;
+import org.benf.cfr.reader.util.collections.ListFactory;
+
+import java.util.List;
+
+/*
+ * Runs a chain of local rewriters in one descent of each expression, rather than a descent each.
+ *
+ * The descent is bottom up - every node gets each (enabled) rewriter in turn, once its children are done.
+ * Whether a rewriter is enabled is decided once, here, rather than on every node.
+ *
+ * Conditional expressions are descended but not offered to the chain, as a rewriter may not change their type.
+ */
+public class CompositeExpressionRewriter extends AbstractExpressionRewriter {
+    private final LocalExpressionRewriter[] rewriters;
+
+    public CompositeExpressionRewriter(LocalExpressionRewriter... rewriters) {
+        List<LocalExpressionRewriter> enabled = ListFactory.newList();
+        for (LocalExpressionRewriter rewriter : rewriters) {
+            if (rewriter.isEnabled()) enabled.add(rewriter);
+        }
+        this.rewriters = enabled.toArray(new LocalExpressionRewriter[enabled.size()]);
+    }
+
+    public boolean isEmpty() {
+        return rewriters.length == 0;
+    }
+
+    @Override
+    public Expression rewriteExpression(Expression expression, SSAIdentifiers ssaIdentifiers, StatementContainer statementContainer, ExpressionRewriterFlags flags) {
+        expression = expression.applyExpressionRewriter(this, ssaIdentifiers, statementContainer, flags);
+        for (LocalExpressionRewriter rewriter : rewriters) {
+            expression = rewriter.rewriteLocal(expression, ssaIdentifiers, statementContainer, flags);
+        }
+        return expression;
+    }
+
+    @Override
+    public ConditionalExpression rewriteExpression(ConditionalExpression expression, SSAIdentifiers ssaIdentifiers, StatementContainer statementContainer, ExpressionRewriterFlags flags) {
+        return (ConditionalExpression) expression.applyExpressionRewriter(this, ssaIdentifiers, statementContainer, flags);
+    }
+}
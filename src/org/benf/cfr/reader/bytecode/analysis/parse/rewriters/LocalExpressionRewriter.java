@@ -0,0 +1,22 @@
+package org.benf.cfr.reader.bytecode.analysis.parse.rewriters;
+
+import org.benf.cfr.reader.bytecode.analysis.parse.Expression;
+import org.benf.cfr.reader.bytecode.analysis.parse.StatementContainer;
+import org.benf.cfr.reader.bytecode.analysis.parse.utils.SSAIdentifiers;
+
+/*
+ * A rewriter whose work on a node depends only on that node (and what's below it), and which doesn't change
+ * any state another statement's rewriting could see.  Several of these can share a single bottom up descent -
+ * see CompositeExpressionRewriter.
+ */
+public interface LocalExpressionRewriter {
+    /*
+     * False if (given the options we were made with) we'd never change anything.
+     */
+    boolean isEnabled();
+
+    /*
+     * Rewrite this node only - its children have already been dealt with.
+     */
+    Expression rewriteLocal(Expression expression, SSAIdentifiers ssaIdentifiers, StatementContainer statementContainer, ExpressionRewriterFlags flags);
+}
@@ -19,7 +19,7 @@ import org.benf.cfr.reader.util.getopt.OptionsImpl;
 
 import java.util.*;
 
-public class StringBuilderRewriter implements ExpressionRewriter {
+public class StringBuilderRewriter implements ExpressionRewriter, LocalExpressionRewriter {
     private final boolean stringBuilderEnabled;
     private final boolean stringBufferEnabled;
     private final boolean stringConcatFactoryEnabled;
@@ -33,7 +33,16 @@ public class StringBuilderRewriter implements ExpressionRewriter {
     @Override
     public Expression rewriteExpression(Expression expression, SSAIdentifiers ssaIdentifiers, StatementContainer statementContainer, ExpressionRewriterFlags flags) {
         expression = expression.applyExpressionRewriter(this, ssaIdentifiers, statementContainer, flags);
+        return rewriteLocal(expression, ssaIdentifiers, statementContainer, flags);
+    }
 
+    @Override
+    public boolean isEnabled() {
+        return stringBufferEnabled || stringBuilderEnabled || stringConcatFactoryEnabled;
+    }
+
+    @Override
+    public Expression rewriteLocal(Expression expression, SSAIdentifiers ssaIdentifiers, StatementContainer statementContainer, ExpressionRewriterFlags flags) {
         Expression result = null;
         if ((stringBufferEnabled || stringBuilderEnabled) && expression instanceof MemberFunctionInvokation) {
             MemberFunctionInvokation memberFunctionInvokation = (MemberFunctionInvokation) expression;
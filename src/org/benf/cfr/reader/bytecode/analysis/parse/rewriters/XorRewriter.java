@@ -7,20 +7,34 @@ import org.benf.cfr.reader.bytecode.analysis.parse.expression.*;
 import org.benf.cfr.reader.bytecode.analysis.parse.lvalue.StackSSALabel;
 import org.benf.cfr.reader.bytecode.analysis.parse.utils.SSAIdentifiers;
 
-public class XorRewriter implements ExpressionRewriter {
+public class XorRewriter implements ExpressionRewriter, LocalExpressionRewriter {
 
     public XorRewriter() {
     }
 
     @Override
     public Expression rewriteExpression(Expression expression, SSAIdentifiers ssaIdentifiers, StatementContainer statementContainer, ExpressionRewriterFlags flags) {
+        expression = rewriteLocal(expression, ssaIdentifiers, statementContainer, flags);
+        return expression.applyExpressionRewriter(this, ssaIdentifiers, statementContainer, flags);
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return true;
+    }
+
+    /*
+     * The replacement keeps the original operand, so it doesn't matter whether that's done before or after.
+     */
+    @Override
+    public Expression rewriteLocal(Expression expression, SSAIdentifiers ssaIdentifiers, StatementContainer statementContainer, ExpressionRewriterFlags flags) {
         if (expression instanceof ArithmeticOperation) {
             ArithmeticOperation arithmeticOperation = (ArithmeticOperation) expression;
             if (arithmeticOperation.isXorM1()) {
                 expression = arithmeticOperation.getReplacementXorM1();
             }
         }
-        return expression.applyExpressionRewriter(this, ssaIdentifiers, statementContainer, flags);
+        return expression;
     }
 
 
@@ -19,6 +19,7 @@ import org.benf.cfr.reader.bytecode.analysis.types.TypeConstants;
 import org.benf.cfr.reader.entities.Method;
 import org.benf.cfr.reader.entities.exceptions.ExceptionCheckSimple;
 import org.benf.cfr.reader.entities.exceptions.ExceptionGroup;
+import org.benf.cfr.reader.util.AnalysisBudget;
 import org.benf.cfr.reader.util.collections.*;
 import org.benf.cfr.reader.util.functors.BinaryProcedure;
 import org.benf.cfr.reader.util.functors.Predicate;
@@ -95,6 +96,7 @@ public class FinalAnalyzer {
         Set<Result> results = SetFactory.newOrderedSet();
         Set<Op03SimpleStatement> peerTrySeen = SetFactory.newOrderedSet();
         while (peerTries.hasNext()) {
+            AnalysisBudget.check();
             Op03SimpleStatement tryS = peerTries.removeNext();
             if (!peerTrySeen.add(tryS)) {
                 continue;
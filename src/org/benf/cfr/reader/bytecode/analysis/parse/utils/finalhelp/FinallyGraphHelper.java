@@ -21,6 +21,12 @@ import java.util.*;
 
 public class FinallyGraphHelper {
     private final FinallyCatchBody finallyCatchBody;
+    /*
+     * The same statement gets offered up repeatedly - catch blocks are shared between peer tries, and
+     * recursive tries revisit exits.  A helper only lives while finally blocks are being looked for, and
+     * nothing is rewritten until that's done, so the answer for a statement can't change.
+     */
+    private final Map<Op03SimpleStatement, Result> matchCache = new IdentityHashMap<Op03SimpleStatement, Result>();
 
 
     public FinallyGraphHelper(FinallyCatchBody finallyCatchBody) {
@@ -53,6 +59,27 @@ public class FinallyGraphHelper {
     }
 
     public Result match(Op03SimpleStatement test) {
+        Result res = matchCache.get(test);
+        if (res == null) {
+            res = quickReject(test) ? Result.FAIL : matchGraph(test);
+            matchCache.put(test, res);
+        }
+        return res;
+    }
+
+    /*
+     * Every statement's equivalentUnder insists on the same class, so if the first statements differ, there's
+     * no point walking anything.  (Unless the finally starts with a try, which might be a jdk13 addSuppressed
+     * wrapper - see below.)
+     */
+    private boolean quickReject(Op03SimpleStatement test) {
+        if (finallyCatchBody.isEmpty()) return false;
+        Statement sb = finallyCatchBody.getCatchCodeStart().getStatement();
+        if (sb instanceof TryStatement) return false;
+        return test.getStatement().getClass() != sb.getClass();
+    }
+
+    private Result matchGraph(Op03SimpleStatement test) {
         Set<BlockIdentifier> minBlockSet = SetFactory.newOrderedSet(test.getBlockIdentifiers());
         Op03SimpleStatement finalThrowProxy = null;
         Op03SimpleStatement finalThrow = finallyCatchBody.getThrowOp();
@@ -6,48 +6,52 @@ import org.benf.cfr.reader.bytecode.analysis.types.StackTypes;
 import org.benf.cfr.reader.util.ConfusedCFRException;
 import org.benf.cfr.reader.util.collections.ListFactory;
 
+import java.util.Arrays;
 import java.util.List;
 
+/*
+ * Immutable - a StackSim is handed to every target of an instruction, so each branch has to see the stack as
+ * it was.
+ *
+ * Rather than a chain of nodes, a stack is a depth into an array shared with the stacks it was derived from.
+ * Entries below our depth are never changed, so sharing is safe.  A push writes in place if nobody sharing the
+ * array has pushed past our depth already (the common, straight line, case) - otherwise it copies what it needs.
+ */
 public class StackSim {
-    private final StackSim parent;
-    private final StackEntryHolder stackEntryHolder;
-    private final long depth;
+    private static final int INITIAL_CAPACITY = 8;
+
+    private final Storage storage;
+    private final int depth;
 
     public StackSim() {
-        this.depth = 0;
-        this.parent = null;
-        this.stackEntryHolder = null;
+        this(new Storage(INITIAL_CAPACITY), 0);
     }
 
-    private StackSim(StackSim parent, StackType stackType) {
-        this.parent = parent;
-        this.depth = parent.depth + 1;
-        this.stackEntryHolder = new StackEntryHolder(stackType);
+    private StackSim(Storage storage, int depth) {
+        this.storage = storage;
+        this.depth = depth;
     }
 
+    /*
+     * depth 0 is the top of the stack.
+     */
     public StackEntry getEntry(int depth) {
-        StackSim thisSim = this;
-        while (depth > 0) {
-            thisSim = thisSim.getParent();
-            depth--;
+        if (depth > this.depth) {
+            throw new ConfusedCFRException("Stack underflow");
         }
-        if (thisSim.stackEntryHolder == null) {
+        if (depth == this.depth) {
             throw new ConfusedCFRException("Underrun type stack");
         }
-        return thisSim.stackEntryHolder.getStackEntry();
+        return storage.holders[this.depth - 1 - depth].getStackEntry();
     }
 
     public List<StackEntryHolder> getHolders(int offset, long num) {
-        StackSim thisSim = this;
-        List<StackEntryHolder> res = ListFactory.newList();
-        while (num > 0) {
-            if (offset > 0) {
-                offset--;
-            } else {
-                res.add(thisSim.stackEntryHolder);
-                num--;
-            }
-            thisSim = thisSim.getParent();
+        if (offset + num > depth) {
+            throw new ConfusedCFRException("Stack underflow");
+        }
+        List<StackEntryHolder> res = ListFactory.newList((int) num);
+        for (int idx = depth - 1 - offset, end = idx - (int) num; idx > end; --idx) {
+            res.add(storage.holders[idx]);
         }
         return res;
     }
@@ -56,49 +60,85 @@ public class StackSim {
         return depth;
     }
 
+    /*
+     * As getHolders(0, num).get(idx), but without building the list.
+     */
+    public StackEntryHolder getHolder(int idx) {
+        if (idx >= depth) {
+            throw new ConfusedCFRException("Stack underflow");
+        }
+        return storage.holders[depth - 1 - idx];
+    }
+
     public StackSim getChange(StackDelta delta, List<StackEntryHolder> consumed, List<StackEntryHolder> produced, Op02WithProcessedDataAndRefs instruction) {
         if (delta.isNoOp()) {
             return this;
         }
         try {
-            StackSim thisSim = this;
             StackTypes consumedStack = delta.getConsumed();
-            for (StackType stackType : consumedStack) {
-                consumed.add(thisSim.stackEntryHolder);
-                thisSim = thisSim.getParent();
+            int numConsumed = consumedStack.size();
+            if (numConsumed > depth) {
+                throw new ConfusedCFRException("Stack underflow");
             }
+            StackEntryHolder[] holders = storage.holders;
+            for (int x = 0; x < numConsumed; ++x) {
+                consumed.add(holders[depth - 1 - x]);
+            }
+            int base = depth - numConsumed;
             StackTypes producedStack = delta.getProduced();
-            for (int x = producedStack.size() - 1; x >= 0; --x) {
-                thisSim = new StackSim(thisSim, producedStack.get(x));
+            int numProduced = producedStack.size();
+            if (numProduced == 0) {
+                return new StackSim(storage, base);
             }
-            StackSim thatSim = thisSim;
-            for (StackType stackType : producedStack) {
-                produced.add(thatSim.stackEntryHolder);
-                thatSim = thatSim.getParent();
+            Storage target = storage.claim(base, numProduced);
+            holders = target.holders;
+            // First produced ends up on top.
+            for (int x = 0; x < numProduced; ++x) {
+                StackEntryHolder holder = new StackEntryHolder(producedStack.get(x));
+                holders[base + numProduced - 1 - x] = holder;
+                produced.add(holder);
             }
-            return thisSim;
+            return new StackSim(target, base + numProduced);
         } catch (ConfusedCFRException e) {
             throw new ConfusedCFRException("While processing " + instruction + " : " + e.getMessage());
         }
     }
 
-    private StackSim getParent() {
-        if (parent == null) {
-            throw new ConfusedCFRException("Stack underflow");
-        }
-        return parent;
-    }
-
     @Override
     public String toString() {
-        StackSim next = this;
         StringBuilder sb = new StringBuilder();
-        while (next != null) {
-            if (next.stackEntryHolder == null) break;
-            StackEntry stackEntry = next.stackEntryHolder.getStackEntry();
+        for (int idx = depth - 1; idx >= 0; --idx) {
+            StackEntry stackEntry = storage.holders[idx].getStackEntry();
             sb.append(stackEntry).append('[').append(stackEntry.getType()).append("] ");
-            next = next.parent;
         }
         return sb.toString();
     }
+
+    private static class Storage {
+        private StackEntryHolder[] holders;
+        // Nobody sharing this has anything above here.
+        private int used;
+
+        private Storage(int capacity) {
+            this.holders = new StackEntryHolder[capacity];
+        }
+
+        /*
+         * Somewhere we can write count entries from base, keeping everything below base.
+         */
+        private Storage claim(int base, int count) {
+            int required = base + count;
+            if (used == base) {
+                if (required > holders.length) {
+                    holders = Arrays.copyOf(holders, Math.max(required, holders.length * 2));
+                }
+                used = required;
+                return this;
+            }
+            Storage res = new Storage(Math.max(INITIAL_CAPACITY, required * 2));
+            System.arraycopy(holders, 0, res.holders, 0, base);
+            res.used = required;
+            return res;
+        }
+    }
 }
@@ -0,0 +1,45 @@
+package org.benf.cfr.reader.bytecode.analysis.structured.statement;
+
+import org.benf.cfr.reader.util.output.Dumper;
+
+import java.util.List;
+
+/*
+ * Stands in for the body of a method we gave up on - the bytecode, as a comment.
+ */
+public class StructuredBytecodeDump extends StructuredComment {
+    private final String reason;
+    private final List<String> instructions;
+
+    public StructuredBytecodeDump(String reason, List<String> instructions) {
+        super("");
+        this.reason = reason;
+        this.instructions = instructions;
+    }
+
+    @Override
+    public Dumper dump(Dumper dumper) {
+        dumper.separator("{");
+        dumper.indent(1);
+        dumper.newln();
+        dumper.beginBlockComment(false);
+        dumper.print(escape("Not decompiled - " + reason + ".  Bytecode:")).newln();
+        for (String instruction : instructions) {
+            dumper.print(escape(instruction)).newln();
+        }
+        dumper.endBlockComment();
+        dumper.keyword("throw new ").print("IllegalStateException").separator("(").literal("\"Decompilation failed\"", "Decompilation failed").separator(")").endCodeln();
+        dumper.indent(-1);
+        dumper.separator("}");
+        dumper.enqueuePendingCarriageReturn();
+
+        return dumper;
+    }
+
+    /*
+     * Constant pool strings and (obfuscated) names can contain anything - don't let them end the comment.
+     */
+    private static String escape(String line) {
+        return line.replace("*/", "*\\/");
+    }
+}
@@ -56,11 +56,13 @@ import org.benf.cfr.reader.state.OverloadMethodSetCache;
 import org.benf.cfr.reader.state.TypeUsageCollectingDumper;
 import org.benf.cfr.reader.state.TypeUsageCollector;
 import org.benf.cfr.reader.state.TypeUsageInformation;
+import org.benf.cfr.reader.util.AnalysisBudget;
 import org.benf.cfr.reader.util.CannotLoadClassException;
 import org.benf.cfr.reader.util.ClassFileVersion;
 import org.benf.cfr.reader.util.ConfusedCFRException;
 import org.benf.cfr.reader.util.DecompilerComment;
 import org.benf.cfr.reader.util.DecompilerComments;
+import org.benf.cfr.reader.util.MethodSelector;
 import org.benf.cfr.reader.util.MiscConstants;
 import org.benf.cfr.reader.util.StringUtils;
 import org.benf.cfr.reader.util.TypeUsageCollectable;
@@ -918,23 +920,28 @@ public class ClassFile implements Dumpable, TypeUsageCollectable {
     }
 
     public void analyseTop(final DCCommonState dcCommonState, final TypeUsageCollectingDumper typeUsageCollectingDumper) {
-        analyseMid(dcCommonState);
-        analysePassOuterFirst(new UnaryProcedure<ClassFile>() {
-            @Override
-            public void call(ClassFile arg) {
-                CodeAnalyserWholeClass.wholeClassAnalysisPass2(arg, dcCommonState);
-            }
-        });
-        /*
-         * Perform a pass to determine what imports / classes etc we used / failed.
-         */
-        this.dump(typeUsageCollectingDumper);
-        analysePassOuterFirst(new UnaryProcedure<ClassFile>() {
-            @Override
-            public void call(ClassFile arg) {
-                CodeAnalyserWholeClass.wholeClassAnalysisPass3(arg, dcCommonState, typeUsageCollectingDumper);
-            }
-        });
+        AnalysisBudget budget = AnalysisBudget.beginClass(dcCommonState.getOptions());
+        try {
+            analyseMid(dcCommonState);
+            analysePassOuterFirst(new UnaryProcedure<ClassFile>() {
+                @Override
+                public void call(ClassFile arg) {
+                    CodeAnalyserWholeClass.wholeClassAnalysisPass2(arg, dcCommonState);
+                }
+            });
+            /*
+             * Perform a pass to determine what imports / classes etc we used / failed.
+             */
+            this.dump(typeUsageCollectingDumper);
+            analysePassOuterFirst(new UnaryProcedure<ClassFile>() {
+                @Override
+                public void call(ClassFile arg) {
+                    CodeAnalyserWholeClass.wholeClassAnalysisPass3(arg, dcCommonState, typeUsageCollectingDumper);
+                }
+            });
+        } finally {
+            AnalysisBudget.end(budget);
+        }
     }
 
     private void analyseSyntheticTags(Method method, Options options) {
@@ -1033,6 +1040,7 @@ public class ClassFile implements Dumpable, TypeUsageCollectable {
         for (Method method : partition.getSecond()) {
             method.analyse();
         }
+        MethodSelector methodSelector = state.getMethodSelector();
 
         try {
             if (options.getOption(OptionsImpl.OVERRIDES, classFileVersion)) {
@@ -1041,7 +1049,15 @@ public class ClassFile implements Dumpable, TypeUsageCollectable {
 
             CodeAnalyserWholeClass.wholeClassAnalysisPass1(this, state);
         } catch (RuntimeException e) {
-            addComment(DecompilerComment.WHOLE_CLASS_EXCEPTION);
+            // If we've only analysed some methods, whole class analysis may well not make sense.
+            if (methodSelector == null) addComment(DecompilerComment.WHOLE_CLASS_EXCEPTION);
+        }
+
+        // Only once whole class analysis has seen them - eg enums need their constructors.
+        if (methodSelector != null) {
+            for (Method method : methods) {
+                if (!methodSelector.isVisible(method)) method.hideDead();
+            }
         }
 
     }
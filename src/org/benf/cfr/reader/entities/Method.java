@@ -253,6 +253,10 @@ public class Method implements KnowsRawSize, TypeUsageCollectable {
         return methodPrototype.getName();
     }
 
+    public String getRawDescriptor() {
+        return cp.getUTF8Entry(descriptorIndex).getValue();
+    }
+
     /* This is a bit ugly - otherwise though we need to tie a variable namer to this earlier.
      * We can't always use the signature... in an enum, for example, it lies!
      *
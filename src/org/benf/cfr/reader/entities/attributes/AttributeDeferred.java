@@ -0,0 +1,71 @@
+package org.benf.cfr.reader.entities.attributes;
+
+import org.benf.cfr.reader.entities.constantpool.ConstantPool;
+import org.benf.cfr.reader.entityfactories.AttributeFactory;
+import org.benf.cfr.reader.state.TypeUsageCollector;
+import org.benf.cfr.reader.util.ClassFileVersion;
+import org.benf.cfr.reader.util.bytestream.ByteData;
+import org.benf.cfr.reader.util.output.Dumper;
+
+/*
+ * Placeholder for an attribute we know the name and extent of, but haven't decoded.
+ *
+ * Many class files are only loaded to find their hierarchy or method prototypes - there's no point
+ * decoding annotations / stack maps / debug tables for those.  The real attribute is decoded on first
+ * access, and kept here - so reads through AttributeMap don't have to modify it.
+ */
+public class AttributeDeferred extends Attribute {
+    private static final long OFFSET_OF_ATTRIBUTE_LENGTH = 2;
+    private static final long OFFSET_OF_REMAINDER = 6;
+
+    private final int length;
+    private final String name;
+    // Not needed once we've decoded.
+    private ByteData raw;
+    private ConstantPool cp;
+    private ClassFileVersion classFileVersion;
+    private Attribute decoded;
+
+    public AttributeDeferred(ByteData raw, String name, ConstantPool cp, ClassFileVersion classFileVersion) {
+        this.length = raw.getS4At(OFFSET_OF_ATTRIBUTE_LENGTH);
+        this.name = name;
+        this.raw = raw;
+        this.cp = cp;
+        this.classFileVersion = classFileVersion;
+    }
+
+    synchronized Attribute decode() {
+        if (decoded == null) {
+            decoded = AttributeFactory.build(raw, cp, classFileVersion);
+            raw = null;
+            cp = null;
+            classFileVersion = null;
+        }
+        return decoded;
+    }
+
+    @Override
+    public String getRawName() {
+        return name;
+    }
+
+    @Override
+    public Dumper dump(Dumper d) {
+        return decode().dump(d);
+    }
+
+    @Override
+    public void collectTypeUsages(TypeUsageCollector collector) {
+        decode().collectTypeUsages(collector);
+    }
+
+    @Override
+    public long getRawByteLength() {
+        return OFFSET_OF_REMAINDER + length;
+    }
+
+    @Override
+    public String toString() {
+        return "Deferred Attribute : " + name;
+    }
+}
@@ -20,6 +20,9 @@ public class AttributeMap implements TypeUsageCollectable {
     public <T extends Attribute> T getByName(String name) {
         Attribute attribute = attributes.get(name);
         if (attribute == null) return null;
+        if (attribute instanceof AttributeDeferred) {
+            attribute = ((AttributeDeferred) attribute).decode();
+        }
         // There's no reason to be getting an unknown attribute here.  This means we
         // tried to fetch a well known name.
         if (attribute instanceof AttributeUnknown) {
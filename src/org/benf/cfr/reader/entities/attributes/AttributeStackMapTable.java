@@ -1,13 +1,17 @@
 package org.benf.cfr.reader.entities.attributes;
 
 import org.benf.cfr.reader.entities.constantpool.ConstantPool;
-import org.benf.cfr.reader.util.ClassFileVersion;
 import org.benf.cfr.reader.util.collections.ListFactory;
+import org.benf.cfr.reader.util.collections.MapFactory;
+import org.benf.cfr.reader.util.collections.SetFactory;
 import org.benf.cfr.reader.util.bytestream.ByteData;
 import org.benf.cfr.reader.util.bytestream.OffsettingByteData;
 import org.benf.cfr.reader.util.output.Dumper;
 
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /*
  * https://docs.oracle.com/javase/specs/jvms/se7/html/jvms-4.html#jvms-4.7.4
@@ -45,26 +49,24 @@ public class AttributeStackMapTable extends Attribute {
     private static final long OFFSET_OF_STACK_MAP_FRAMES = 8;
 
     private final int length;
-    private final boolean valid; // apparently, anyway!
-    private final List<StackMapFrame> stackMapFrames;
+    private final ByteData raw;
+    private boolean valid; // apparently, anyway!
+    private List<StackMapFrame> stackMapFrames;
 
+    /*
+     * Frames aren't read until someone asks for them - most of the time nobody will.
+     */
     public AttributeStackMapTable(ByteData raw, ConstantPool cp) {
         this.length = raw.getS4At(OFFSET_OF_ATTRIBUTE_LENGTH);
-        this.valid = false;
-        this.stackMapFrames = null;
+        this.raw = raw;
     }
 
-    /*
-     * NB : Currently unused - until I actually make use of this, doesn't seem worth consuming the
-     * memory.
-     */
-    public AttributeStackMapTable(ByteData raw, ConstantPool cp, ClassFileVersion classFileVersion) {
-        this.length = raw.getS4At(OFFSET_OF_ATTRIBUTE_LENGTH);
+    private void readFrames() {
+        if (stackMapFrames != null) return;
         int numEntries = raw.getU2At(OFFSET_OF_NUMBER_OF_ENTRIES);
-        long offset = OFFSET_OF_STACK_MAP_FRAMES;
         List<StackMapFrame> frames = ListFactory.newList();
         boolean isValid = true;
-        OffsettingByteData data = raw.getOffsettingOffsetData(offset);
+        OffsettingByteData data = raw.getOffsettingOffsetData(OFFSET_OF_STACK_MAP_FRAMES);
         try {
             for (int x = 0; x < numEntries; ++x) {
                 StackMapFrame frame = readStackMapFrame(data);
@@ -78,20 +80,66 @@ public class AttributeStackMapTable extends Attribute {
     }
 
     public boolean isValid() {
+        readFrames();
         return valid;
     }
 
     public List<StackMapFrame> getStackMapFrames() {
+        readFrames();
         return stackMapFrames;
     }
 
+    /*
+     * Local slots which the frames show holding (non null) references of different classes at different points.
+     * Frames give the declared type of each live local, so that's almost certainly distinct variables sharing
+     * a slot - which otherwise we'd only find out about when a pass produced clashing types.
+     *
+     * initialWide has an entry per local in the implicit first frame, i.e. 'this' and the arguments - true
+     * for longs and doubles, which take two slots but are one entry.
+     *
+     * Classes are compared by constant pool index - if a class appears twice in the pool, we'll see a conflict
+     * where there isn't one, which just means we split a variable we didn't need to.
+     */
+    public Set<Integer> getSlotsWithConflictingTypes(boolean[] initialWide) {
+        Set<Integer> res = SetFactory.newSet();
+        if (!isValid()) return res;
+        List<VerificationInfo> locals = ListFactory.newList();
+        for (boolean wide : initialWide) {
+            // We only need the width - which of long / double doesn't matter.
+            locals.add(wide ? VerificationInfoLong.INSTANCE : VerificationInfoTop.INSTANCE);
+        }
+        Map<Integer, Integer> classBySlot = MapFactory.newMap();
+        for (StackMapFrame frame : stackMapFrames) {
+            if (frame instanceof StackMapFrameChopFrame) {
+                int chop = 251 - ((StackMapFrameChopFrame) frame).frame_type;
+                if (chop > locals.size()) return SetFactory.newSet();
+                locals.subList(locals.size() - chop, locals.size()).clear();
+            } else if (frame instanceof StackMapFrameAppendFrame) {
+                Collections.addAll(locals, ((StackMapFrameAppendFrame) frame).verificationInfos);
+            } else if (frame instanceof StackMapFrameFullFrame) {
+                locals.clear();
+                Collections.addAll(locals, ((StackMapFrameFullFrame) frame).verificationLocals);
+            }
+            int slot = 0;
+            for (VerificationInfo local : locals) {
+                if (local instanceof VerificationInfoObject) {
+                    Integer cpIdx = ((VerificationInfoObject) local).cpool_index;
+                    Integer previous = classBySlot.put(slot, cpIdx);
+                    if (previous != null && !previous.equals(cpIdx)) res.add(slot);
+                }
+                slot += (local == VerificationInfoLong.INSTANCE || local == VerificationInfoDouble.INSTANCE) ? 2 : 1;
+            }
+        }
+        return res;
+    }
+
     private static StackMapFrame readStackMapFrame(OffsettingByteData raw) {
         short frameType = raw.getU1At(0);
         raw.advance(1);
         if (frameType < 64) {
             return new StackMapFrameSameFrame(frameType);
         }
-        if (frameType < 127) {
+        if (frameType < 128) {
             return same_locals_1_stack_item_frame(frameType, raw);
         }
         if (frameType < 247) {
@@ -34,6 +34,13 @@ public class ConstantPoolEntryClass extends AbstractConstantPoolEntry implements
         return ClassNameUtils.convertFromPath(getClassNameString(nameIndex)) + ".class";
     }
 
+    /*
+     * As getTypeInstance().getRawName(), without needing to build the type.
+     */
+    public String getRawClassName() {
+        return ClassNameUtils.convertFromPath(getClassNameString(nameIndex));
+    }
+
     public String getFilePath() {
         return getClassNameString(nameIndex) + ".class";
     }
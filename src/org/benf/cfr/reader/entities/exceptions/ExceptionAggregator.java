@@ -1,5 +1,6 @@
 package org.benf.cfr.reader.entities.exceptions;
 
+import org.benf.cfr.reader.bytecode.analysis.opgraph.InstrOffsetTable;
 import org.benf.cfr.reader.bytecode.analysis.opgraph.Op01WithProcessedDataAndByteJumps;
 import org.benf.cfr.reader.bytecode.analysis.parse.utils.BlockIdentifierFactory;
 import org.benf.cfr.reader.bytecode.analysis.parse.utils.BlockType;
@@ -20,7 +21,7 @@ import java.util.*;
 public class ExceptionAggregator {
 
     private final List<ExceptionGroup> exceptionsByRange = ListFactory.newList();
-    private final Map<Integer, Integer> lutByOffset;
+    private final InstrOffsetTable lutByOffset;
     private final List<Op01WithProcessedDataAndByteJumps> instrs;
     private final boolean aggressiveAggregate;
     private final boolean aggressiveAggregate2;
@@ -101,8 +102,8 @@ public class ExceptionAggregator {
         boolean veryAggressive = false;
 
         while (current < startNext) {
-            Integer idx = lutByOffset.get(current);
-            if (idx == null) return false;
+            int idx = lutByOffset.getIdx(current);
+            if (idx == -1) return false;
             Op01WithProcessedDataAndByteJumps op = instrs.get(idx);
             JVMInstr instr = op.getJVMInstr();
             if (instr.isNoThrow()) {
@@ -183,7 +184,7 @@ public class ExceptionAggregator {
     * In that case, we should split the exception regime into non-overlapping sections.
     */
     public ExceptionAggregator(List<ExceptionTableEntry> rawExceptions, BlockIdentifierFactory blockIdentifierFactory,
-                               final Map<Integer, Integer> lutByOffset,
+                               final InstrOffsetTable lutByOffset,
                                List<Op01WithProcessedDataAndByteJumps> instrs,
                                final Options options,
                                final ConstantPool cp,
@@ -217,8 +218,8 @@ public class ExceptionAggregator {
 
             do {
                 exceptionTableEntryOrig = exceptionTableEntry;
-                Integer tgtIdx = lutByOffset.get(indexTo);
-                if (tgtIdx != null) {
+                int tgtIdx = lutByOffset.getIdx(indexTo);
+                if (tgtIdx != -1) {
 
                     // See if the last statement is a direct return, which could be pushed in.  If so, expand try block.
                     int offset = canExpandTryBy(tgtIdx, instrs);
@@ -351,13 +352,12 @@ public class ExceptionAggregator {
     /*
      * Remove try statements which simply jump to monitorexit+ , throw statements.
      */
-    public void removeSynchronisedHandlers(final Map<Integer, Integer> lutByOffset,
-                                           final Map<Integer, Integer> lutByIdx,
+    public void removeSynchronisedHandlers(final InstrOffsetTable lutByOffset,
                                            List<Op01WithProcessedDataAndByteJumps> instrs) {
         Iterator<ExceptionGroup> groupIterator = exceptionsByRange.iterator();
         while (groupIterator.hasNext()) {
             ExceptionGroup group = groupIterator.next();
-            group.removeSynchronisedHandlers(lutByOffset, lutByIdx, instrs);
+            group.removeSynchronisedHandlers(lutByOffset, instrs);
             if (group.getEntries().isEmpty()) {
                 groupIterator.remove();
             }
@@ -392,7 +392,7 @@ public class ExceptionAggregator {
      * We should then re-cover the try block with the coverage which is applied to the exception handler (if any).
      *
      */
-    public void aggressivePruning(final Map<Integer, Integer> lutByOffset,
+    public void aggressivePruning(final InstrOffsetTable lutByOffset,
                                   List<Op01WithProcessedDataAndByteJumps> instrs) {
         Iterator<ExceptionGroup> groupIterator = exceptionsByRange.iterator();
         while (groupIterator.hasNext()) {
@@ -401,8 +401,8 @@ public class ExceptionAggregator {
             if (entries.size() != 1) continue;
             ExceptionGroup.Entry entry = entries.get(0);
             int handler = entry.getBytecodeIndexHandler();
-            Integer index = lutByOffset.get(handler);
-            if (index == null) continue;
+            int index = lutByOffset.getIdx(handler);
+            if (index == -1) continue;
             Op01WithProcessedDataAndByteJumps handlerStartInstr = instrs.get(index);
             if (handlerStartInstr.getJVMInstr() == JVMInstr.ATHROW) {
                 groupIterator.remove();
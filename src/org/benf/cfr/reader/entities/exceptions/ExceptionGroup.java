@@ -1,5 +1,6 @@
 package org.benf.cfr.reader.entities.exceptions;
 
+import org.benf.cfr.reader.bytecode.analysis.opgraph.InstrOffsetTable;
 import org.benf.cfr.reader.bytecode.analysis.opgraph.Op01WithProcessedDataAndByteJumps;
 import org.benf.cfr.reader.bytecode.analysis.parse.utils.BlockIdentifier;
 import org.benf.cfr.reader.bytecode.analysis.parse.utils.ComparableUnderEC;
@@ -13,7 +14,6 @@ import org.benf.cfr.reader.util.StringUtils;
 
 import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
 
 public class ExceptionGroup {
 
@@ -58,19 +58,17 @@ public class ExceptionGroup {
         return tryBlockIdentifier;
     }
 
-    public void removeSynchronisedHandlers(final Map<Integer, Integer> lutByOffset,
-                                           final Map<Integer, Integer> lutByIdx,
+    public void removeSynchronisedHandlers(final InstrOffsetTable lutByOffset,
                                            List<Op01WithProcessedDataAndByteJumps> instrs) {
         Iterator<Entry> entryIterator = entries.iterator();
         while (entryIterator.hasNext()) {
             Entry entry = entryIterator.next();
-            if (isSynchronisedHandler(entry, lutByOffset, lutByIdx, instrs)) entryIterator.remove();
+            if (isSynchronisedHandler(entry, lutByOffset, instrs)) entryIterator.remove();
         }
     }
 
     private boolean isSynchronisedHandler(Entry entry,
-                                          final Map<Integer, Integer> lutByOffset,
-                                          final Map<Integer, Integer> lutByIdx,
+                                          final InstrOffsetTable lutByOffset,
                                           List<Op01WithProcessedDataAndByteJumps> instrs) {
         /*
          * TODO : Type should be 'any'.
@@ -80,10 +78,9 @@ public class ExceptionGroup {
         /*
          * We expect - astore X, (aload, monitorexit)+, aload X, athrow
          */
-        Integer offset = lutByOffset.get(tableEntry.getBytecodeIndexHandler());
-        if (offset == null) return false;
+        int idx = lutByOffset.getIdx(tableEntry.getBytecodeIndexHandler());
+        if (idx == -1) return false;
 
-        int idx = offset;
         if (idx >= instrs.size()) return false;
 
         Op01WithProcessedDataAndByteJumps start = instrs.get(idx);
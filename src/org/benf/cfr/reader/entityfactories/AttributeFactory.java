@@ -5,15 +5,39 @@ import org.benf.cfr.reader.entities.constantpool.ConstantPoolEntryUTF8;
 import org.benf.cfr.reader.entities.attributes.*;
 import org.benf.cfr.reader.util.ClassFileVersion;
 import org.benf.cfr.reader.util.bytestream.ByteData;
+import org.benf.cfr.reader.util.collections.SetFactory;
 import org.benf.cfr.reader.util.functors.UnaryFunction;
 
+import java.util.Set;
+
 public class AttributeFactory {
     private static final long OFFSET_OF_ATTRIBUTE_NAME_INDEX = 0;
 
-    public static Attribute build(ByteData raw, ConstantPool cp, ClassFileVersion classFileVersion) {
+    /*
+     * These are expensive to decode, and not needed unless we're actually decompiling the
+     * owning class - so they're left raw until first asked for.
+     */
+    private static final Set<String> DEFERRED_ATTRIBUTES = SetFactory.newSet(
+            AttributeLocalVariableTable.ATTRIBUTE_NAME,
+            AttributeLocalVariableTypeTable.ATTRIBUTE_NAME,
+            AttributeLineNumberTable.ATTRIBUTE_NAME,
+            AttributeStackMapTable.ATTRIBUTE_NAME,
+            AttributeRuntimeVisibleAnnotations.ATTRIBUTE_NAME,
+            AttributeRuntimeInvisibleAnnotations.ATTRIBUTE_NAME,
+            AttributeRuntimeVisibleTypeAnnotations.ATTRIBUTE_NAME,
+            AttributeRuntimeInvisibleTypeAnnotations.ATTRIBUTE_NAME,
+            AttributeRuntimeVisibleParameterAnnotations.ATTRIBUTE_NAME,
+            AttributeRuntimeInvisibleParameterAnnotations.ATTRIBUTE_NAME
+    );
+
+    private static String getAttributeName(ByteData raw, ConstantPool cp) {
         final int nameIndex = raw.getU2At(OFFSET_OF_ATTRIBUTE_NAME_INDEX);
         ConstantPoolEntryUTF8 name = (ConstantPoolEntryUTF8) cp.getEntry(nameIndex);
-        String attributeName = name.getValue();
+        return name.getValue();
+    }
+
+    public static Attribute build(ByteData raw, ConstantPool cp, ClassFileVersion classFileVersion) {
+        String attributeName = getAttributeName(raw, cp);
 
         /*
          * This absolutely could be replaced with a string switch, but I'm sticking to j6,
@@ -99,6 +123,11 @@ public class AttributeFactory {
 
         @Override
         public Attribute invoke(ByteData arg) {
+            String attributeName = getAttributeName(arg, cp);
+            if (DEFERRED_ATTRIBUTES.contains(attributeName)) {
+                // arg is about to be advanced, so we need our own view of it.
+                return new AttributeDeferred(arg.getOffsetData(0), attributeName, cp, classFileVersion);
+            }
             return AttributeFactory.build(arg, cp, classFileVersion);
         }
     }
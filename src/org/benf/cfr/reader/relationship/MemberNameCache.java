@@ -0,0 +1,209 @@
+package org.benf.cfr.reader.relationship;
+
+import org.benf.cfr.reader.bytecode.analysis.types.ClassNameUtils;
+import org.benf.cfr.reader.bytecode.analysis.types.JavaTypeInstance;
+import org.benf.cfr.reader.entities.ClassFile;
+import org.benf.cfr.reader.entities.Method;
+import org.benf.cfr.reader.state.DCCommonState;
+import org.benf.cfr.reader.util.CannotLoadClassException;
+import org.benf.cfr.reader.util.MiscConstants;
+import org.benf.cfr.reader.util.collections.ListFactory;
+import org.benf.cfr.reader.util.getopt.Options;
+import org.benf.cfr.reader.util.getopt.OptionsImpl;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/*
+ * The result of member name resolution, kept between runs - if we're given the same classes again, we can
+ * apply the renames directly, rather than loading everything and walking the hierarchy.
+ *
+ * The key is a hash of every class we were asked to resolve (name and content), the extra class path, the
+ * CFR version and the options which affect output.
+ * Classes found elsewhere (eg the runtime) aren't hashed, so a different JRE could give different answers -
+ * that's a price worth paying.
+ *
+ * The file is text -
+ *   key <tab> hash
+ *   component                (one per connected part of the hierarchy which needed renames)
+ *   rename <tab> class <tab> method name <tab> descriptor <tab> new name
+ *   end
+ *
+ * It's written to a temporary file and moved into place, but a file without the end line is still ignored -
+ * applying only some of the renames would be worse than applying none.
+ */
+class MemberNameCache {
+    private static final String HEADER = "# CFR member name cache";
+    private static final String KEY = "key";
+    private static final String COMPONENT = "component";
+    private static final String RENAME = "rename";
+    private static final String END = "end";
+
+    private final File file;
+    private final String key;
+
+    private MemberNameCache(File file, String key) {
+        this.file = file;
+        this.key = key;
+    }
+
+    /*
+     * Null if we've not been asked to cache, or can't work out a key.
+     */
+    static MemberNameCache create(DCCommonState dcCommonState, Collection<? extends JavaTypeInstance> types) {
+        Options options = dcCommonState.getOptions();
+        String path = options.getOption(OptionsImpl.RENAME_CACHE);
+        if (path == null) return null;
+        String key = hashTypes(dcCommonState, types, options.getOption(OptionsImpl.EXTRA_CLASS_PATH), OptionsImpl.getOutputFingerprint(options));
+        if (key == null) return null;
+        return new MemberNameCache(new File(path), key);
+    }
+
+    private static String hashTypes(DCCommonState dcCommonState, Collection<? extends JavaTypeInstance> types, String extraClassPath, String optionsFingerprint) {
+        List<String> names = ListFactory.newList();
+        for (JavaTypeInstance type : types) {
+            names.add(type.getRawName());
+        }
+        Collections.sort(names);
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            digest.update((MiscConstants.CFR_VERSION + "\n" + optionsFingerprint + "\n" + extraClassPath + "\n").getBytes("UTF-8"));
+            for (String name : names) {
+                digest.update(name.getBytes("UTF-8"));
+                digest.update(dcCommonState.getClassFileContent(ClassNameUtils.convertToPath(name) + ".class"));
+            }
+            StringBuilder sb = new StringBuilder();
+            for (byte b : digest.digest()) {
+                sb.append(String.format("%02x", b & 0xff));
+            }
+            return sb.toString();
+        } catch (NoSuchAlgorithmException e) {
+            return null;
+        } catch (IOException e) {
+            return null;
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    /*
+     * If the file is from a run over the same classes, apply its renames and return true.
+     * Nothing is renamed unless everything can be.
+     */
+    boolean apply(DCCommonState dcCommonState) {
+        if (!file.exists()) return false;
+        List<Method> methods = ListFactory.newList();
+        List<String> fixedNames = ListFactory.newList();
+        try {
+            BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), "UTF-8"));
+            try {
+                String line = reader.readLine();
+                if (!HEADER.equals(line)) return false;
+                line = reader.readLine();
+                if (line == null || !line.equals(KEY + "\t" + key)) return false;
+                boolean ended = false;
+                while (null != (line = reader.readLine())) {
+                    if (line.equals(END)) {
+                        ended = true;
+                        break;
+                    }
+                    String[] parts = line.split("\t");
+                    if (!parts[0].equals(RENAME)) continue;
+                    if (parts.length != 5) return false;
+                    Method method = findMethod(dcCommonState, parts[1], parts[2], parts[3]);
+                    if (method == null) return false;
+                    methods.add(method);
+                    fixedNames.add(parts[4]);
+                }
+                // Truncated - we can't know what's missing.
+                if (!ended) return false;
+            } finally {
+                reader.close();
+            }
+        } catch (IOException e) {
+            return false;
+        }
+        for (int x = 0; x < methods.size(); ++x) {
+            methods.get(x).getMethodPrototype().setFixedName(fixedNames.get(x));
+        }
+        return true;
+    }
+
+    private static Method findMethod(DCCommonState dcCommonState, String className, String name, String descriptor) {
+        ClassFile classFile;
+        try {
+            classFile = dcCommonState.getClassFile(ClassNameUtils.convertToPath(className) + ".class");
+        } catch (CannotLoadClassException e) {
+            return null;
+        }
+        List<Method> candidates = classFile.getMethodsByNameOrNull(name);
+        if (candidates == null) return null;
+        for (Method method : candidates) {
+            if (method.getRawDescriptor().equals(descriptor)) return method;
+        }
+        return null;
+    }
+
+    /*
+     * Each entry is the classes of one component - we store whatever names they've ended up with.
+     */
+    void save(List<List<ClassFile>> components) throws IOException {
+        File parent = file.getAbsoluteFile().getParentFile();
+        if (!parent.exists()) parent.mkdirs();
+        File temp = File.createTempFile(file.getName(), ".tmp", parent);
+        boolean written = false;
+        try {
+            write(temp, components);
+            // Not atomic on every platform if the file's there already, but a partial file is never in place.
+            if (!temp.renameTo(file)) {
+                if (!file.delete() || !temp.renameTo(file)) {
+                    throw new IOException("Can't replace " + file);
+                }
+            }
+            written = true;
+        } finally {
+            if (!written) temp.delete();
+        }
+    }
+
+    private void write(File target, List<List<ClassFile>> components) throws IOException {
+        BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(target), "UTF-8"));
+        try {
+            writer.write(HEADER);
+            writer.newLine();
+            writer.write(KEY + "\t" + key);
+            writer.newLine();
+            for (List<ClassFile> component : components) {
+                boolean started = false;
+                for (ClassFile classFile : component) {
+                    for (Method method : classFile.getMethods()) {
+                        if (!method.getMethodPrototype().hasNameBeenFixed()) continue;
+                        if (!started) {
+                            writer.write(COMPONENT);
+                            writer.newLine();
+                            started = true;
+                        }
+                        writer.write(RENAME + "\t" + classFile.getClassType().getRawName() + "\t" + method.getName() +
+                                "\t" + method.getRawDescriptor() + "\t" + method.getMethodPrototype().getFixedName());
+                        writer.newLine();
+                    }
+                }
+            }
+            writer.write(END);
+            writer.newLine();
+        } finally {
+            writer.close();
+        }
+    }
+}
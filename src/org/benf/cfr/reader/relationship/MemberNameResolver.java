@@ -8,18 +8,49 @@ import org.benf.cfr.reader.state.DCCommonState;
 import org.benf.cfr.reader.util.*;
 import org.benf.cfr.reader.util.collections.*;
 import org.benf.cfr.reader.util.functors.UnaryFunction;
+import org.benf.cfr.reader.util.getopt.OptionsImpl;
+import org.benf.cfr.reader.util.output.SummaryDumper;
 
+import java.io.IOException;
 import java.util.*;
-
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/*
+ * Classes which aren't connected by inheritance (however indirectly) can't affect each other's names, so the
+ * hierarchy is split into connected components, which are resolved independently - in parallel, if asked.
+ *
+ * Resolution does need to load classes lazily (supers of return types, for covariance / visibility checks), and
+ * the class cache isn't thread safe, so that's done under a lock.
+ */
 public class MemberNameResolver {
-    public static void resolveNames(DCCommonState dcCommonState, Collection<? extends JavaTypeInstance> types) {
+    public static void resolveNames(DCCommonState dcCommonState, Collection<? extends JavaTypeInstance> types, SummaryDumper summaryDumper) {
+        MemberNameCache cache = MemberNameCache.create(dcCommonState, types);
+        if (cache != null && cache.apply(dcCommonState)) return;
+
         MemberNameResolver self = new MemberNameResolver(dcCommonState);
         self.initialise(types);
-        self.resolve();
+        List<Component> components = self.partition();
+        self.resolve(components, dcCommonState.getOptions().getOption(OptionsImpl.RENAME_THREADS));
+
+        if (cache != null) {
+            List<List<ClassFile>> classes = ListFactory.newList();
+            for (Component component : components) {
+                classes.add(component.classFiles);
+            }
+            try {
+                cache.save(classes);
+            } catch (IOException e) {
+                // Just means we'll have to do it again next time - but say so.
+                summaryDumper.notify("Couldn't save member name cache " + e);
+            }
+        }
     }
 
     public static boolean verifySingleClassNames(ClassFile oneClassFile) {
-        MemberInfo memberInfo = new MemberInfo(oneClassFile);
+        MemberInfo memberInfo = new MemberInfo(oneClassFile, new Object());
 
         for (Method method : oneClassFile.getMethods()) {
             // Visibility also captures information about bridge / synthetic, but we still want to skip them
@@ -44,6 +75,7 @@ public class MemberNameResolver {
     private final Map<ClassFile, Set<ClassFile>> childToParent = MapFactory.newLazyMap(mapFactory);
     private final Map<ClassFile, Set<ClassFile>> parentToChild = MapFactory.newLazyMap(mapFactory);
     private final Map<ClassFile, MemberInfo> infoMap = MapFactory.newIdentityMap();
+    private final Object loadLock = new Object();
 
 
     private MemberNameResolver(DCCommonState dcCommonState) {
@@ -92,7 +124,7 @@ public class MemberNameResolver {
         }
 
         for (ClassFile classFile : classFiles) {
-            MemberInfo memberInfo = new MemberInfo(classFile);
+            MemberInfo memberInfo = new MemberInfo(classFile, loadLock);
 
             for (Method method : classFile.getMethods()) {
                 memberInfo.add(method);
@@ -101,12 +133,137 @@ public class MemberNameResolver {
         }
     }
 
-    private void resolve() {
+    private static class Component {
+        private final List<ClassFile> roots = ListFactory.newList();
+        private final List<ClassFile> classFiles = ListFactory.newList();
+        private final List<MemberInfo> memberInfos = ListFactory.newList();
+    }
+
+    /*
+     * Everything in a component keeps the relative order it would have had in a single pass.
+     *
+     * Classes we're not resolving, which have nothing we're resolving above them (java.lang.Object, most
+     * obviously) have nothing to pass down, so walking from them is the same as walking from each of their
+     * children.  We do that instead, otherwise they'd join everything into one component.
+     */
+    private List<Component> partition() {
+        Map<ClassFile, Boolean> passThrough = MapFactory.newIdentityMap();
+        Map<ClassFile, ClassFile> leaders = MapFactory.newIdentityMap();
+        for (Map.Entry<ClassFile, Set<ClassFile>> entry : childToParent.entrySet()) {
+            for (ClassFile parent : entry.getValue()) {
+                if (isPassThrough(parent, passThrough)) continue;
+                ClassFile a = findLeader(leaders, entry.getKey());
+                ClassFile b = findLeader(leaders, parent);
+                if (a != b) leaders.put(a, b);
+            }
+        }
+
+        Map<ClassFile, Component> byLeader = MapFactory.newOrderedMap();
         /*
          * java.lang.object AND interfaces, unless things are very weird.
          */
         List<ClassFile> roots = SetUtil.differenceAtakeBtoList(parentToChild.keySet(), childToParent.keySet());
         for (ClassFile root : roots) {
+            addRoot(root, byLeader, leaders, passThrough);
+        }
+        for (Map.Entry<ClassFile, MemberInfo> entry : infoMap.entrySet()) {
+            Component component = getComponent(byLeader, findLeader(leaders, entry.getKey()));
+            component.classFiles.add(entry.getKey());
+            component.memberInfos.add(entry.getValue());
+        }
+        return ListFactory.newList(byLeader.values());
+    }
+
+    private void addRoot(ClassFile root, Map<ClassFile, Component> byLeader, Map<ClassFile, ClassFile> leaders, Map<ClassFile, Boolean> passThrough) {
+        if (!isPassThrough(root, passThrough)) {
+            getComponent(byLeader, findLeader(leaders, root)).roots.add(root);
+            return;
+        }
+        for (ClassFile child : getChildren(root)) {
+            addRoot(child, byLeader, leaders, passThrough);
+        }
+    }
+
+    private boolean isPassThrough(ClassFile classFile, Map<ClassFile, Boolean> passThrough) {
+        Boolean res = passThrough.get(classFile);
+        if (res != null) return res;
+        // Pessimistic while we look, in case of a (broken) cycle.
+        passThrough.put(classFile, false);
+        boolean isPassThrough = !infoMap.containsKey(classFile);
+        if (isPassThrough && childToParent.containsKey(classFile)) {
+            for (ClassFile parent : childToParent.get(classFile)) {
+                if (!isPassThrough(parent, passThrough)) {
+                    isPassThrough = false;
+                    break;
+                }
+            }
+        }
+        passThrough.put(classFile, isPassThrough);
+        return isPassThrough;
+    }
+
+    private static ClassFile findLeader(Map<ClassFile, ClassFile> leaders, ClassFile classFile) {
+        ClassFile res = classFile;
+        ClassFile next;
+        while ((next = leaders.get(res)) != null) res = next;
+        // Shorten the path for next time.
+        while ((next = leaders.get(classFile)) != null && next != res) {
+            leaders.put(classFile, res);
+            classFile = next;
+        }
+        return res;
+    }
+
+    private static Component getComponent(Map<ClassFile, Component> byLeader, ClassFile leader) {
+        Component res = byLeader.get(leader);
+        if (res == null) {
+            res = new Component();
+            byLeader.put(leader, res);
+        }
+        return res;
+    }
+
+    private void resolve(List<Component> components, int threads) {
+        if (threads <= 1 || components.size() <= 1) {
+            for (Component component : components) {
+                resolve(component);
+            }
+            return;
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, components.size()));
+        List<Future<?>> futures = ListFactory.newList();
+        try {
+            for (final Component component : components) {
+                futures.add(executor.submit(new Runnable() {
+                    @Override
+                    public void run() {
+                        resolve(component);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            for (Future<?> future : futures) {
+                future.cancel(true);
+            }
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            for (Future<?> future : futures) {
+                future.cancel(true);
+            }
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            if (cause instanceof Error) throw (Error) cause;
+            throw new IllegalStateException(cause);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private void resolve(Component component) {
+        for (ClassFile root : component.roots) {
             checkBadNames(root);
         }
 
@@ -114,12 +271,12 @@ public class MemberNameResolver {
          * Explicitly insert clashes of parents, so they can be pushed back down!
          */
 
-        insertParentClashes();
+        insertParentClashes(component.memberInfos);
         /*
          * A second pass, starting again at the roots, pushing any detected bad names into any children -
          * this is necessary to handle (a->X, a->Y, b->X, where a and b clash - we need to make sure we rename Y as well).
          */
-        for (ClassFile root : roots) {
+        for (ClassFile root : component.roots) {
             rePushBadNames(root);
         }
 
@@ -128,11 +285,18 @@ public class MemberNameResolver {
          * Now, infoMap contains all the MemberInfos for the classes we're analysing.
          * Obviously, a child will have all the clashes its parents have, unless there is a private blocker.
          */
-        patchBadNames();
+        patchBadNames(component.memberInfos);
     }
 
-    private void patchBadNames() {
-        Collection<MemberInfo> memberInfos = infoMap.values();
+    /*
+     * Unlike get, doesn't add to the map - which may be being read by other components.
+     */
+    private Set<ClassFile> getChildren(ClassFile c) {
+        if (!parentToChild.containsKey(c)) return Collections.emptySet();
+        return parentToChild.get(c);
+    }
+
+    private void patchBadNames(Collection<MemberInfo> memberInfos) {
         for (MemberInfo memberInfo : memberInfos) {
             if (!memberInfo.hasClashes()) continue;
             Set<MethodKey> clashes = memberInfo.getClashes();
@@ -158,8 +322,8 @@ public class MemberNameResolver {
         }
     }
 
-    private void insertParentClashes() {
-        for (MemberInfo memberInfo : infoMap.values()) {
+    private void insertParentClashes(Collection<MemberInfo> memberInfos) {
+        for (MemberInfo memberInfo : memberInfos) {
             if (memberInfo.hasClashes()) {
                 Set<MethodKey> clashes = memberInfo.getClashes();
                 for (MethodKey clash : clashes) {
@@ -194,7 +358,7 @@ public class MemberNameResolver {
         }
 
         parents.push(c);
-        for (ClassFile child : parentToChild.get(c)) {
+        for (ClassFile child : getChildren(c)) {
             rePushBadNames(child, clashes, parents);
         }
         parents.pop();
@@ -203,7 +367,7 @@ public class MemberNameResolver {
 
     private void checkBadNames(ClassFile c) {
         Stack<ClassFile> parents = StackFactory.newStack();
-        MemberInfo base = new MemberInfo(null);
+        MemberInfo base = new MemberInfo(null, loadLock);
         checkBadNames(c, base, parents);
     }
 
@@ -217,7 +381,7 @@ public class MemberNameResolver {
         }
 
         parents.push(c);
-        for (ClassFile child : parentToChild.get(c)) {
+        for (ClassFile child : getChildren(c)) {
             checkBadNames(child, memberInfo, parents);
         }
         parents.pop();
@@ -239,9 +403,11 @@ public class MemberNameResolver {
             }
         });
         private final Set<MethodKey> clashes = SetFactory.newSet();
+        private final Object loadLock;
 
-        private MemberInfo(ClassFile classFile) {
+        private MemberInfo(ClassFile classFile, Object loadLock) {
             this.classFile = classFile;
+            this.loadLock = loadLock;
         }
 
         /* If we're indexing methodkey by name + arg types, we SHOULD not expect to see any collisions, except overrides.
@@ -270,8 +436,12 @@ public class MemberNameResolver {
                 // This is ok if key2 is covariant to an existing key.
                 if (methods.keySet().size() == 1) {
                     JavaTypeInstance existing = methods.keySet().iterator().next();
-                    BindingSuperContainer supers = existing.getBindingSupers();
-                    if (supers != null && supers.containsBase(key2)) {
+                    boolean covariant;
+                    synchronized (loadLock) {
+                        BindingSuperContainer supers = existing.getBindingSupers();
+                        covariant = supers != null && supers.containsBase(key2);
+                    }
+                    if (covariant) {
                         key2 = existing;
                     }
                 }
@@ -312,7 +482,7 @@ public class MemberNameResolver {
                      * Only add visible ones.
                      */
                     for (Method method : methods) {
-                        if (method.isVisibleTo(classFile.getRefClassType())) {
+                        if (isVisible(method)) {
                             add(key, returnType, method, true);
                         }
                     }
@@ -320,6 +490,14 @@ public class MemberNameResolver {
             }
         }
 
+        private boolean isVisible(Method method) {
+            // Public is by far the common case, and doesn't need anything loaded.
+            if (method.testAccessFlag(AccessFlagMethod.ACC_PUBLIC)) return true;
+            synchronized (loadLock) {
+                return method.isVisibleTo(classFile.getRefClassType());
+            }
+        }
+
         @Override
         public String toString() {
             return "" + classFile;
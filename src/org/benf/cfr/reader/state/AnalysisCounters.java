@@ -0,0 +1,36 @@
+package org.benf.cfr.reader.state;
+
+/*
+ * Running totals of work done through a DCCommonState, for progress reporting.
+ *
+ * Each state has its own (they're not shared with overlays), so these are only touched by one thread.
+ */
+public class AnalysisCounters {
+    private long bytesLoaded;
+    private int failedMethods;
+    private int recoveredMethods;
+
+    void classLoaded(int bytes) {
+        bytesLoaded += bytes;
+    }
+
+    public void methodFailed() {
+        failedMethods++;
+    }
+
+    public void methodRecovered() {
+        recoveredMethods++;
+    }
+
+    public long getBytesLoaded() {
+        return bytesLoaded;
+    }
+
+    public int getFailedMethods() {
+        return failedMethods;
+    }
+
+    public int getRecoveredMethods() {
+        return recoveredMethods;
+    }
+}
@@ -0,0 +1,125 @@
+package org.benf.cfr.reader.state;
+
+import org.benf.cfr.reader.bytecode.BytecodeMeta;
+import org.benf.cfr.reader.entities.Method;
+import org.benf.cfr.reader.util.DecompilerComment;
+import org.benf.cfr.reader.util.getopt.Options;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * When we're in low memory mode, classes have their code released once they're dumped.
+ *
+ * However, it's common for a released class to be needed again - eg to inline a lambda body, or
+ * resolve a synthetic accessor.  We can't keep the analysed code itself - by the time it's released,
+ * whole class passes have rewritten it (and it's been dumped), and there's no way to copy it beforehand.
+ *
+ * What we can keep is how we got there - for a method which needed recovery passes, the pass which
+ * worked, and what we knew before running it.  Replaying that gives the same code a fresh analysis
+ * would, without repeating the passes which failed.
+ *
+ * These are retained softly (so the GC can always have them back), up to a budget measured in the
+ * bytecode length of the methods retained.  Least recently used is evicted first.
+ */
+public class AnalysisMemo {
+    private final long budget;
+    private long used;
+    private final Map<Method, Entry> content = new LinkedHashMap<Method, Entry>(16, 0.75f, true);
+    private final ReferenceQueue<Recovery> collected = new ReferenceQueue<Recovery>();
+
+    public AnalysisMemo(long budget) {
+        this.budget = budget;
+    }
+
+    public boolean isEnabled() {
+        return budget > 0;
+    }
+
+    public synchronized void put(Method method, Recovery recovery, int cost) {
+        if (recovery == null || cost > budget) return;
+        expungeCollected();
+        Entry previous = content.put(method, new Entry(method, recovery, cost, collected));
+        if (previous != null) used -= previous.cost;
+        used += cost;
+        Iterator<Entry> iterator = content.values().iterator();
+        while (used > budget && iterator.hasNext()) {
+            used -= iterator.next().cost;
+            iterator.remove();
+        }
+    }
+
+    /*
+     * Remove and return the retained recovery, if we still have it.
+     */
+    public synchronized Recovery take(Method method) {
+        expungeCollected();
+        Entry entry = content.remove(method);
+        if (entry == null) return null;
+        used -= entry.cost;
+        return entry.get();
+    }
+
+    /*
+     * Anything the GC has had back no longer counts against the budget (nor keeps its method alive).
+     */
+    private void expungeCollected() {
+        Object ref;
+        while (null != (ref = collected.poll())) {
+            Entry entry = (Entry) ref;
+            // It may already have been evicted, or replaced.
+            if (content.get(entry.method) == entry) {
+                content.remove(entry.method);
+                used -= entry.cost;
+            }
+        }
+    }
+
+    public static class Recovery {
+        private final int passIdx;
+        private final Options options;
+        private final List<DecompilerComment> comments;
+        private final BytecodeMeta bytecodeMeta;
+
+        public Recovery(int passIdx, Options options, List<DecompilerComment> comments, BytecodeMeta bytecodeMeta) {
+            this.passIdx = passIdx;
+            this.options = options;
+            this.comments = comments;
+            this.bytecodeMeta = bytecodeMeta;
+        }
+
+        public int getPassIdx() {
+            return passIdx;
+        }
+
+        public Options getOptions() {
+            return options;
+        }
+
+        public List<DecompilerComment> getComments() {
+            return comments;
+        }
+
+        /*
+         * A fresh copy each time - the pass will write into it.
+         */
+        public BytecodeMeta getBytecodeMeta() {
+            return bytecodeMeta.copy();
+        }
+    }
+
+    private static class Entry extends SoftReference<Recovery> {
+        private final Method method;
+        private final int cost;
+
+        private Entry(Method method, Recovery recovery, int cost, ReferenceQueue<Recovery> queue) {
+            super(recovery, queue);
+            this.method = method;
+            this.cost = cost;
+        }
+    }
+}
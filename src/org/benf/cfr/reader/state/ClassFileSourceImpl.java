@@ -6,6 +6,7 @@ import org.benf.cfr.reader.bytecode.analysis.parse.utils.Pair;
 import org.benf.cfr.reader.util.AnalysisType;
 import org.benf.cfr.reader.util.ConfusedCFRException;
 import org.benf.cfr.reader.util.MiscConstants;
+import org.benf.cfr.reader.util.MiscUtils;
 import org.benf.cfr.reader.util.StringUtils;
 import org.benf.cfr.reader.util.collections.Functional;
 import org.benf.cfr.reader.util.collections.ListFactory;
@@ -36,6 +37,9 @@ public class ClassFileSourceImpl implements ClassFileSource2 {
     private Map<String, JarSourceEntry> classToPathMap;
     private final Options options;
     private ClassRenamer classRenamer;
+    private Map<String, byte[]> retainedContent;
+    private long retainedBytes;
+    private long retainedBudget;
     /*
      * Initialisation info
      */
@@ -57,6 +61,91 @@ public class ClassFileSourceImpl implements ClassFileSource2 {
         this.options = options;
     }
 
+    /*
+     * Long lived sessions see the same dependencies over and over - rather than re-opening and re-inflating
+     * the jar each time, hang onto the content.  Off by default, as a single run mostly reads each class once.
+     *
+     * Bounded by total size - least recently used content is dropped first.
+     */
+    public void retainJarContent() {
+        long budget = options.getOption(OptionsImpl.RETAINED_CONTENT_BUDGET);
+        if (budget <= 0 || retainedContent != null) return;
+        retainedBudget = budget;
+        retainedContent = new LinkedHashMap<String, byte[]>(16, 0.75f, true);
+    }
+
+    private static String retainedKey(String jarPath, String entryPath) {
+        return jarPath + '\u0000' + entryPath;
+    }
+
+    private byte[] getRetainedContent(String jarPath, String entryPath) {
+        if (retainedContent == null) return null;
+        return retainedContent.get(retainedKey(jarPath, entryPath));
+    }
+
+    private void retainContent(String jarPath, String entryPath, byte[] content) {
+        if (retainedContent == null) return;
+        if (content.length > retainedBudget) return;
+        byte[] previous = retainedContent.put(retainedKey(jarPath, entryPath), content);
+        if (previous != null) retainedBytes -= previous.length;
+        retainedBytes += content.length;
+        Iterator<byte[]> iterator = retainedContent.values().iterator();
+        while (retainedBytes > retainedBudget) {
+            retainedBytes -= iterator.next().length;
+            iterator.remove();
+        }
+    }
+
+    private void forgetRetainedContent(String jarPath) {
+        String prefix = retainedKey(jarPath, "");
+        Iterator<Map.Entry<String, byte[]>> iterator = retainedContent.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, byte[]> entry = iterator.next();
+            if (entry.getKey().startsWith(prefix)) {
+                retainedBytes -= entry.getValue().length;
+                iterator.remove();
+            }
+        }
+    }
+
+    /*
+     * The jar at jarPath has changed - forget anything we've read from it, and re-index it if we'd seen it.
+     */
+    public void invalidate(String jarPath) {
+        File file = new File(jarPath);
+        String absolutePath = file.getAbsolutePath();
+        if (retainedContent != null) {
+            forgetRetainedContent(jarPath);
+            if (!absolutePath.equals(jarPath)) forgetRetainedContent(absolutePath);
+        }
+        if (classToPathMap == null) return;
+        JarSourceEntry seen = null;
+        Iterator<JarSourceEntry> iterator = classToPathMap.values().iterator();
+        while (iterator.hasNext()) {
+            JarSourceEntry entry = iterator.next();
+            if (entry.getPath().equals(jarPath) || entry.getPath().equals(absolutePath)) {
+                seen = entry;
+                iterator.remove();
+            }
+        }
+        if (seen != null && file.exists()) {
+            processClassPathFile(file, seen.getPath(), classToPathMap, seen.getAnalysisType(), false);
+        }
+    }
+
+    /*
+     * Forget everything - the class path will be scanned again on next use.
+     */
+    public void invalidateAll() {
+        if (retainedContent != null) {
+            retainedContent.clear();
+            retainedBytes = 0;
+        }
+        explicitJars.clear();
+        classToPathMap = null;
+        classRenamer = null;
+    }
+
     private byte[] getBytesFromFile(InputStream is, long length) throws IOException {
         // Create the byte array to hold the data
         byte[] bytes = new byte[(int) length];
@@ -125,14 +214,18 @@ public class ClassFileSourceImpl implements ClassFileSource2 {
                 length = file.length();
                 content = getBytesFromFile(is, length);
             } else if (jarEntry != null) {
-                zipFile = new ZipFile(new File(jarEntry.getPath()), ZipFile.OPEN_READ);
                 if (jarEntry.analysisType == AnalysisType.WAR) {
                     path = MiscConstants.WAR_PREFIX + path;
                 }
-                ZipEntry zipEntry = zipFile.getEntry(path);
-                length = zipEntry.getSize();
-                is = zipFile.getInputStream(zipEntry);
-                content = getBytesFromFile(is, length);
+                content = getRetainedContent(jarEntry.getPath(), path);
+                if (content == null) {
+                    zipFile = new ZipFile(new File(jarEntry.getPath()), ZipFile.OPEN_READ);
+                    ZipEntry zipEntry = zipFile.getEntry(path);
+                    length = zipEntry.getSize();
+                    is = zipFile.getInputStream(zipEntry);
+                    content = getBytesFromFile(is, length);
+                    retainContent(jarEntry.getPath(), path, content);
+                }
             } else {
                 // Fallback - can we get the bytes using a java9 extractor?
                 content = getInternalContent(inputPath);
@@ -278,19 +371,30 @@ public class ClassFileSourceImpl implements ClassFileSource2 {
             classRenamer.notifyClassFiles(jarContent.getClassFiles());
         }
 
-        List < String > output = ListFactory.newList();
+        /*
+         * Every class has to be findable, as it may be a dependency - but we only need to hand back
+         * the ones which pass the jar filter, so nothing further is created for the rest.
+         */
+        Predicate<String> filter = MiscUtils.mkClassPathFilter(options.getOption(OptionsImpl.JAR_FILTER));
+        List<String> selected = ListFactory.newList();
         for (String classPath : jarContent.getClassFiles()) {
             if (classPath.toLowerCase().endsWith(".class")) {
+                String originalPath = classPath;
                 // nb : entry.value will always be the jar here, but ....
                 if (classRenamer != null) {
                     classPath = classRenamer.getRenamedClass(classPath);
                 }
                 classToPathMap.put(classPath, sourceEntry);
-                output.add(classPath);
+                if (filter.test(classPath)) {
+                    selected.add(originalPath);
+                }
             }
         }
         explicitJars.add(jarPath);
-        return jarContent;
+        if (selected.size() == jarContent.getClassFiles().size()) {
+            return jarContent;
+        }
+        return new JarContentImpl(selected, jarContent.getManifestEntries(), jarContent.getAnalysisType());
     }
 
     private static class JarSourceEntry {
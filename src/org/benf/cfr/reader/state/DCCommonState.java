@@ -12,6 +12,7 @@ import org.benf.cfr.reader.mapping.ObfuscationMapping;
 import org.benf.cfr.reader.util.AnalysisType;
 import org.benf.cfr.reader.util.CannotLoadClassException;
 import org.benf.cfr.reader.util.DecompilerComment;
+import org.benf.cfr.reader.util.MethodSelector;
 import org.benf.cfr.reader.util.MiscConstants;
 import org.benf.cfr.reader.util.bytestream.BaseByteData;
 import org.benf.cfr.reader.util.bytestream.ByteData;
@@ -21,8 +22,13 @@ import org.benf.cfr.reader.util.collections.SetFactory;
 import org.benf.cfr.reader.util.functors.BinaryFunction;
 import org.benf.cfr.reader.util.functors.UnaryFunction;
 import org.benf.cfr.reader.util.getopt.Options;
+import org.benf.cfr.reader.util.getopt.OptionsImpl;
 
 import java.io.File;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
@@ -40,6 +46,10 @@ public class DCCommonState {
     private transient LinkedHashSet<String> couldNotLoadClasses = new LinkedHashSet<String>();
     private final ObfuscationMapping obfuscationMapping;
     private final OverloadMethodSetCache overloadMethodSetCache;
+    private final AnalysisMemo analysisMemo;
+    private final AnalysisCounters analysisCounters = new AnalysisCounters();
+    private final MethodSelector methodSelector;
+    private final Map<Integer, Set<JavaTypeInstance>> versionDuplicates = MapFactory.newMap();
 
     public DCCommonState(Options options, ClassFileSource2 classFileSource) {
         this.options = options;
@@ -53,7 +63,9 @@ public class DCCommonState {
         });
         this.versionCollisions = SetFactory.newSet();
         this.obfuscationMapping = NullMapping.INSTANCE;
-        this.overloadMethodSetCache = new OverloadMethodSetCache();
+        this.overloadMethodSetCache = new OverloadMethodSetCache(options.getOption(OptionsImpl.OVERLOAD_CACHE_SIZE));
+        this.analysisMemo = new AnalysisMemo(options.getOption(OptionsImpl.ANALYSIS_MEMO_BUDGET));
+        this.methodSelector = MethodSelector.create(options.getOption(OptionsImpl.METHOD_SELECTOR));
     }
 
     public DCCommonState(DCCommonState dcCommonState, final BinaryFunction<String, DCCommonState, ClassFile> cacheAccess) {
@@ -69,6 +81,8 @@ public class DCCommonState {
         this.versionCollisions = dcCommonState.versionCollisions;
         this.obfuscationMapping = dcCommonState.obfuscationMapping;
         this.overloadMethodSetCache = dcCommonState.overloadMethodSetCache;
+        this.analysisMemo = dcCommonState.analysisMemo;
+        this.methodSelector = dcCommonState.methodSelector;
     }
 
     // TODO : If we have any more of these, refactor to a builder!
@@ -85,6 +99,8 @@ public class DCCommonState {
         this.versionCollisions = dcCommonState.versionCollisions;
         this.obfuscationMapping = mapping;
         this.overloadMethodSetCache = dcCommonState.overloadMethodSetCache;
+        this.analysisMemo = dcCommonState.analysisMemo;
+        this.methodSelector = dcCommonState.methodSelector;
     }
 
     public void setCollisions(Set<JavaTypeInstance> versionCollisions) {
@@ -111,6 +127,7 @@ public class DCCommonState {
     public ClassFile loadClassFileAtPath(final String path) {
         try {
             Pair<byte[], String> content = classFileSource.getClassFileContent(path);
+            analysisCounters.classLoaded(content.getFirst().length);
             ByteData data = new BaseByteData(content.getFirst());
             return new ClassFile(data, content.getSecond(), this);
         } catch (Exception e) {
@@ -119,6 +136,10 @@ public class DCCommonState {
         }
     }
 
+    public byte[] getClassFileContent(String path) throws IOException {
+        return classFileSource.getClassFileContent(path).getFirst();
+    }
+
     public DecompilerComment renamedTypeComment(String typeName) {
         String originalName = classCache.getOriginalName(typeName);
         if (originalName != null) {
@@ -135,6 +156,7 @@ public class DCCommonState {
 
     public TreeMap<Integer, List<JavaTypeInstance>> explicitlyLoadJar(String path, AnalysisType type) {
         JarContent jarContent = classFileSource.addJarContent(path, type);
+        versionDuplicates.clear();
 
         TreeMap<Integer, List<JavaTypeInstance>> baseRes = MapFactory.newTreeMap();
         Map<Integer, List<JavaTypeInstance>> res = MapFactory.newLazyMap(baseRes, new UnaryFunction<Integer, List<JavaTypeInstance>>() {
@@ -144,8 +166,11 @@ public class DCCommonState {
             }
         });
         boolean isMultiReleaseJar = isMultiReleaseJar(jarContent);
+        Set<String> basePaths = SetFactory.newSet();
+        List<Pair<Integer, Pair<JavaTypeInstance, String>>> versioned = ListFactory.newList();
 
         for (String classPath : jarContent.getClassFiles()) {
+            String entryPath = classPath;
             // If the classPath is from a multi release jar, then we're going
             // to have to process it in a more unpleasant way.
             int version = 0;
@@ -169,12 +194,65 @@ public class DCCommonState {
 
             // Redundant test as we're defending against a bad implementation.
             if (classPath.toLowerCase().endsWith(".class")) {
-                res.get(version).add(classCache.getRefClassFor(classPath.substring(0, classPath.length() - 6)));
+                JavaRefTypeInstance refType = classCache.getRefClassFor(classPath.substring(0, classPath.length() - 6));
+                res.get(version).add(refType);
+                if (version == 0) {
+                    basePaths.add(classPath);
+                } else {
+                    versioned.add(Pair.make(version, Pair.<JavaTypeInstance, String>make(refType, entryPath)));
+                }
             }
         }
+        findVersionDuplicates(basePaths, versioned);
         return baseRes;
     }
 
+    /*
+     * Builds often copy every class into each version of a multi release jar, rather than just the ones which
+     * changed.  Find the versioned entries which are byte for byte the same as the base entry, so that the
+     * base analysis can be used for them.
+     */
+    private void findVersionDuplicates(Set<String> basePaths, List<Pair<Integer, Pair<JavaTypeInstance, String>>> versioned) {
+        if (versioned.isEmpty()) return;
+        Map<String, byte[]> baseHashes = MapFactory.newMap();
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            return;
+        }
+        for (Pair<Integer, Pair<JavaTypeInstance, String>> entry : versioned) {
+            JavaTypeInstance type = entry.getSecond().getFirst();
+            String basePath = ClassNameUtils.convertToPath(type.getRawName()) + ".class";
+            if (!basePaths.contains(basePath)) continue;
+            try {
+                byte[] baseHash = baseHashes.get(basePath);
+                if (baseHash == null) {
+                    baseHash = digest.digest(getClassFileContent(basePath));
+                    baseHashes.put(basePath, baseHash);
+                }
+                byte[] hash = digest.digest(getClassFileContent(entry.getSecond().getSecond()));
+                if (!MessageDigest.isEqual(baseHash, hash)) continue;
+            } catch (IOException e) {
+                continue;
+            }
+            Set<JavaTypeInstance> duplicates = versionDuplicates.get(entry.getFirst());
+            if (duplicates == null) {
+                duplicates = SetFactory.newSet();
+                versionDuplicates.put(entry.getFirst(), duplicates);
+            }
+            duplicates.add(type);
+        }
+    }
+
+    /*
+     * Classes in this version of the last jar loaded which are identical to their base version.
+     */
+    public Set<JavaTypeInstance> getVersionDuplicates(int version) {
+        Set<JavaTypeInstance> res = versionDuplicates.get(version);
+        return res == null ? Collections.<JavaTypeInstance>emptySet() : res;
+    }
+
     public ClassFile getClassFile(String path) throws CannotLoadClassException {
         return classFileCache.get(path);
     }
@@ -239,4 +317,19 @@ public class DCCommonState {
     public OverloadMethodSetCache getOverloadMethodSetCache() {
         return overloadMethodSetCache;
     }
+
+    public AnalysisMemo getAnalysisMemo() {
+        return analysisMemo;
+    }
+
+    public AnalysisCounters getAnalysisCounters() {
+        return analysisCounters;
+    }
+
+    /*
+     * Null unless we've been asked to only look at some methods.
+     */
+    public MethodSelector getMethodSelector() {
+        return methodSelector;
+    }
 }
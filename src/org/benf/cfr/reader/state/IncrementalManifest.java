@@ -0,0 +1,477 @@
+package org.benf.cfr.reader.state;
+
+import org.benf.cfr.reader.bytecode.analysis.types.ClassNameUtils;
+import org.benf.cfr.reader.bytecode.analysis.types.JavaTypeInstance;
+import org.benf.cfr.reader.util.MiscConstants;
+import org.benf.cfr.reader.util.collections.ListFactory;
+import org.benf.cfr.reader.util.collections.MapFactory;
+import org.benf.cfr.reader.util.collections.SetFactory;
+import org.benf.cfr.reader.util.getopt.Options;
+import org.benf.cfr.reader.util.getopt.OptionsImpl;
+import org.benf.cfr.reader.util.output.SummaryDumper;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/*
+ * Support for re-decompiling a new version of a jar, when we've got the output of an earlier one.
+ *
+ * Classes are grouped with their nested classes (by name - the same grouping the output files have), and each
+ * group is hashed.  A group is redone if its hash has changed, or if anything it refers to (via its constant pool
+ * class references, which covers supertypes, lambda owners, enum switch maps etc.) has changed.  A group counts as
+ * changed if any of its supertypes has, all the way up - so a change to a class's grandparent causes both it, and
+ * anything which refers to it, to be redone.  (Other references are only followed one level.)
+ *
+ * Groups which failed last time, or produced no output, are always redone.  As is everything, if the CFR version
+ * or the options which affect output have changed.
+ *
+ * Everything else has its previous output copied (if we're writing somewhere else this time).  Output of groups
+ * which have gone away, or which are being redone, is deleted (if we're writing to the same place).
+ *
+ * The manifest is a text file -
+ *   version <tab> cfr version
+ *   options <tab> hash of options
+ *   root <tab> output directory
+ *   group <tab> hash (- if failed) <tab> output file (relative to root) ...
+ */
+public class IncrementalManifest {
+    private static final String HEADER = "# CFR incremental manifest";
+    private static final String VERSION = "version";
+    private static final String OPTIONS = "options";
+    private static final String ROOT = "root";
+    private static final String FAILED = "-";
+
+    private final File manifestFile;
+    private final String outputRoot;
+    private final String optionsHash;
+    private String previousRoot;
+    // Previous output can't be trusted, but we still know what it was.
+    private boolean stale;
+    private final Map<String, Entry> previous = MapFactory.newMap();
+    private final Map<String, Entry> current = MapFactory.newTreeMap();
+
+    private IncrementalManifest(File manifestFile, String outputRoot, String optionsHash) {
+        this.manifestFile = manifestFile;
+        this.outputRoot = new File(outputRoot).getAbsolutePath();
+        this.optionsHash = optionsHash;
+    }
+
+    /*
+     * Null if we're not being incremental.  (or can't be, because we're not writing files).
+     */
+    public static IncrementalManifest create(Options options) {
+        String manifestPath = options.getOption(OptionsImpl.INCREMENTAL_MANIFEST);
+        if (manifestPath == null) return null;
+        String outputRoot = options.optionIsSet(OptionsImpl.OUTPUT_DIR) ?
+                options.getOption(OptionsImpl.OUTPUT_DIR) :
+                options.getOption(OptionsImpl.OUTPUT_PATH);
+        if (outputRoot == null) {
+            throw new IllegalArgumentException("Option '" + OptionsImpl.INCREMENTAL_MANIFEST.getName() + "' requires an output directory");
+        }
+        String optionsHash;
+        try {
+            optionsHash = hash(OptionsImpl.getOutputFingerprint(options).getBytes("UTF-8"));
+        } catch (IOException e) {
+            optionsHash = FAILED;
+        } catch (NoSuchAlgorithmException e) {
+            optionsHash = FAILED;
+        }
+        IncrementalManifest res = new IncrementalManifest(new File(manifestPath), outputRoot, optionsHash);
+        if (res.manifestFile.exists()) {
+            try {
+                res.load();
+            } catch (IOException e) {
+                // Treat as if there were no previous run.
+                res.previous.clear();
+                res.previousRoot = null;
+            }
+        }
+        return res;
+    }
+
+    private void load() throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(manifestFile), "UTF-8"));
+        try {
+            String line = reader.readLine();
+            if (!HEADER.equals(line)) throw new IOException("Not a manifest");
+            String version = readHeader(reader, VERSION);
+            String previousOptions = readHeader(reader, OPTIONS);
+            previousRoot = readHeader(reader, ROOT);
+            stale = !MiscConstants.CFR_VERSION.equals(version) || optionsHash.equals(FAILED) || !optionsHash.equals(previousOptions);
+            while (null != (line = reader.readLine())) {
+                String[] parts = line.split("\t");
+                if (parts.length < 2) continue;
+                Entry entry = new Entry(parts[1]);
+                for (int x = 2; x < parts.length; ++x) {
+                    entry.outputs.add(parts[x]);
+                }
+                previous.put(parts[0], entry);
+            }
+        } finally {
+            reader.close();
+        }
+    }
+
+    /*
+     * These come in a fixed order, so there's no confusion with a class called 'root'.
+     */
+    private static String readHeader(BufferedReader reader, String key) throws IOException {
+        String line = reader.readLine();
+        if (line == null || !line.startsWith(key + "\t")) throw new IOException("Expected " + key);
+        return line.substring(key.length() + 1);
+    }
+
+    public void save() throws IOException {
+        File parent = manifestFile.getAbsoluteFile().getParentFile();
+        if (!parent.exists()) parent.mkdirs();
+        // Written alongside and moved into place, so an interrupted run leaves the old manifest, not half a new one.
+        File temp = File.createTempFile(manifestFile.getName(), ".tmp", parent);
+        boolean written = false;
+        try {
+            write(temp);
+            if (!temp.renameTo(manifestFile)) {
+                if (!manifestFile.delete() || !temp.renameTo(manifestFile)) {
+                    throw new IOException("Can't replace " + manifestFile);
+                }
+            }
+            written = true;
+        } finally {
+            if (!written) temp.delete();
+        }
+    }
+
+    private void write(File target) throws IOException {
+        BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(target), "UTF-8"));
+        try {
+            writer.write(HEADER);
+            writer.newLine();
+            writer.write(VERSION + "\t" + MiscConstants.CFR_VERSION);
+            writer.newLine();
+            writer.write(OPTIONS + "\t" + optionsHash);
+            writer.newLine();
+            writer.write(ROOT + "\t" + outputRoot);
+            writer.newLine();
+            for (Map.Entry<String, Entry> entry : current.entrySet()) {
+                writer.write(entry.getKey());
+                writer.write("\t");
+                writer.write(entry.getValue().failed ? FAILED : entry.getValue().hash);
+                for (String output : entry.getValue().outputs) {
+                    writer.write("\t");
+                    writer.write(output);
+                }
+                writer.newLine();
+            }
+        } finally {
+            writer.close();
+        }
+    }
+
+    private static String getGroup(String rawName) {
+        int idx = rawName.indexOf(MiscConstants.INNER_CLASS_SEP_CHAR);
+        return idx > 0 ? rawName.substring(0, idx) : rawName;
+    }
+
+    /*
+     * Returns the types which need to be redone - previous output for everything else is carried over.
+     */
+    public List<JavaTypeInstance> selectChanged(List<JavaTypeInstance> types, DCCommonState dcCommonState, SummaryDumper summaryDumper) {
+        Map<String, List<JavaTypeInstance>> groups = MapFactory.newTreeMap();
+        for (JavaTypeInstance type : types) {
+            String group = getGroup(type.getRawName());
+            List<JavaTypeInstance> members = groups.get(group);
+            if (members == null) {
+                members = ListFactory.newList();
+                groups.put(group, members);
+            }
+            members.add(type);
+        }
+
+        Set<String> changed = SetFactory.newSet();
+        Map<String, Set<String>> references = MapFactory.newMap();
+        Map<String, Set<String>> supertypes = MapFactory.newMap();
+        for (Map.Entry<String, List<JavaTypeInstance>> group : groups.entrySet()) {
+            String groupName = group.getKey();
+            Set<String> groupReferences = SetFactory.newSet();
+            Set<String> groupSupertypes = SetFactory.newSet();
+            String hash = hashGroup(group.getValue(), dcCommonState, groupReferences, groupSupertypes);
+            references.put(groupName, groupReferences);
+            supertypes.put(groupName, groupSupertypes);
+            current.put(groupName, new Entry(hash == null ? FAILED : hash));
+            Entry prev = previous.get(groupName);
+            if (stale || hash == null || prev == null || !prev.hash.equals(hash) || prev.outputs.isEmpty() || !previousOutputExists(prev)) {
+                changed.add(groupName);
+            }
+        }
+        // Something that's gone away is a change too, for anyone that refers to it.
+        for (Map.Entry<String, Entry> prev : previous.entrySet()) {
+            if (groups.containsKey(prev.getKey())) continue;
+            changed.add(prev.getKey());
+            removePreviousOutput(prev.getValue());
+        }
+        // Anything whose supertype has changed (however far up) has changed itself.
+        boolean grew = true;
+        while (grew) {
+            grew = false;
+            for (Map.Entry<String, Set<String>> groupSupertypes : supertypes.entrySet()) {
+                if (changed.contains(groupSupertypes.getKey())) continue;
+                for (String supertype : groupSupertypes.getValue()) {
+                    if (changed.contains(supertype)) {
+                        changed.add(groupSupertypes.getKey());
+                        grew = true;
+                        break;
+                    }
+                }
+            }
+        }
+
+        List<JavaTypeInstance> res = ListFactory.newList();
+        int reused = 0;
+        for (Map.Entry<String, List<JavaTypeInstance>> group : groups.entrySet()) {
+            String groupName = group.getKey();
+            boolean redo = changed.contains(groupName);
+            if (!redo) {
+                for (String reference : references.get(groupName)) {
+                    if (changed.contains(reference)) {
+                        redo = true;
+                        break;
+                    }
+                }
+            }
+            if (!redo) {
+                redo = !carryOver(groupName);
+            }
+            if (redo) {
+                // Without clobber (the default for outputpath), we'd refuse to overwrite what we wrote last time.
+                Entry prev = previous.get(groupName);
+                if (prev != null) removePreviousOutput(prev);
+                res.addAll(group.getValue());
+            } else {
+                reused++;
+            }
+        }
+        summaryDumper.notify("Incremental : reusing output for " + reused + " of " + groups.size() + " classes");
+        return res;
+    }
+
+    private boolean previousOutputExists(Entry prev) {
+        if (previousRoot == null) return false;
+        for (String output : prev.outputs) {
+            if (!new File(previousRoot, output).exists()) return false;
+        }
+        return true;
+    }
+
+    /*
+     * Only if we're writing to the same place - otherwise it's not ours to remove.
+     */
+    private void removePreviousOutput(Entry prev) {
+        if (previousRoot == null || !previousRoot.equals(outputRoot)) return;
+        for (String output : prev.outputs) {
+            File file = new File(outputRoot, output);
+            if (file.isFile()) file.delete();
+        }
+    }
+
+    private boolean carryOver(String groupName) {
+        Entry prev = previous.get(groupName);
+        Entry now = current.get(groupName);
+        if (!previousRoot.equals(outputRoot)) {
+            try {
+                for (String output : prev.outputs) {
+                    copy(new File(previousRoot, output), new File(outputRoot, output));
+                }
+            } catch (IOException e) {
+                return false;
+            }
+        }
+        now.outputs.addAll(prev.outputs);
+        return true;
+    }
+
+    private static void copy(File from, File to) throws IOException {
+        File parent = to.getParentFile();
+        if (parent != null && !parent.exists() && !parent.mkdirs()) {
+            throw new IOException("Couldn't create dir: " + parent);
+        }
+        InputStream is = new FileInputStream(from);
+        try {
+            OutputStream os = new FileOutputStream(to);
+            try {
+                byte[] buffer = new byte[8192];
+                int len;
+                while ((len = is.read(buffer)) > 0) {
+                    os.write(buffer, 0, len);
+                }
+            } finally {
+                os.close();
+            }
+        } finally {
+            is.close();
+        }
+    }
+
+    /*
+     * Hash of every class in the group, in name order.  Null if we couldn't read them - which we'll treat as
+     * a change.
+     */
+    private static String hashGroup(List<JavaTypeInstance> members, DCCommonState dcCommonState, Set<String> references, Set<String> supertypes) {
+        List<String> names = ListFactory.newList();
+        for (JavaTypeInstance member : members) {
+            names.add(member.getRawName());
+        }
+        Collections.sort(names);
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            for (String name : names) {
+                byte[] content = dcCommonState.getClassFileContent(ClassNameUtils.convertToPath(name) + ".class");
+                digest.update(name.getBytes("UTF-8"));
+                digest.update(content);
+                collectClassReferences(content, references, supertypes);
+            }
+            return toHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            return null;
+        } catch (IOException e) {
+            return null;
+        } catch (RuntimeException e) {
+            // Malformed class - we'll let the real load complain about it.
+            return null;
+        }
+    }
+
+    private static String hash(byte[] content) throws NoSuchAlgorithmException {
+        return toHex(MessageDigest.getInstance("SHA-1").digest(content));
+    }
+
+    private static String toHex(byte[] digest) {
+        StringBuilder sb = new StringBuilder();
+        for (byte b : digest) {
+            sb.append(String.format("%02x", b & 0xff));
+        }
+        return sb.toString();
+    }
+
+    /*
+     * We don't want to build a ClassFile just to find out what it refers to, so walk the constant pool by hand.
+     * The super class and interfaces follow it.
+     */
+    private static void collectClassReferences(byte[] content, Set<String> references, Set<String> supertypes) throws IOException {
+        int count = u2(content, 8);
+        int pos = 10;
+        int[] utf8Offsets = new int[count];
+        int[] classNameIndices = new int[count];
+        for (int idx = 1; idx < count; ++idx) {
+            int tag = content[pos] & 0xff;
+            switch (tag) {
+                case 1:
+                    utf8Offsets[idx] = pos + 1;
+                    pos += 3 + u2(content, pos + 1);
+                    break;
+                case 7:
+                    classNameIndices[idx] = u2(content, pos + 1);
+                    pos += 3;
+                    break;
+                case 8:
+                case 16:
+                case 19:
+                case 20:
+                    pos += 3;
+                    break;
+                case 15:
+                    pos += 4;
+                    break;
+                case 3:
+                case 4:
+                case 9:
+                case 10:
+                case 11:
+                case 12:
+                case 17:
+                case 18:
+                    pos += 5;
+                    break;
+                case 5:
+                case 6:
+                    pos += 9;
+                    ++idx;
+                    break;
+                default:
+                    throw new IOException("Unknown constant pool tag " + tag);
+            }
+        }
+        for (int idx = 1; idx < count; ++idx) {
+            String group = getClassGroup(content, utf8Offsets, classNameIndices, idx);
+            if (group != null) references.add(group);
+        }
+        // access flags, this class, then super class - 0 for java.lang.Object.
+        String superGroup = getClassGroup(content, utf8Offsets, classNameIndices, u2(content, pos + 4));
+        if (superGroup != null) supertypes.add(superGroup);
+        int interfaces = u2(content, pos + 6);
+        for (int x = 0; x < interfaces; ++x) {
+            String interfaceGroup = getClassGroup(content, utf8Offsets, classNameIndices, u2(content, pos + 8 + 2 * x));
+            if (interfaceGroup != null) supertypes.add(interfaceGroup);
+        }
+    }
+
+    private static String getClassGroup(byte[] content, int[] utf8Offsets, int[] classNameIndices, int cpIdx) throws IOException {
+        if (cpIdx == 0 || classNameIndices[cpIdx] == 0) return null;
+        int offset = utf8Offsets[classNameIndices[cpIdx]];
+        String name = new String(content, offset + 2, u2(content, offset), "UTF-8");
+        if (name.startsWith("[")) {
+            int start = name.indexOf('L');
+            if (start == -1) return null;
+            name = name.substring(start + 1, name.length() - 1);
+        }
+        return getGroup(ClassNameUtils.convertFromPath(name));
+    }
+
+    private static int u2(byte[] content, int pos) {
+        return ((content[pos] & 0xff) << 8) | (content[pos + 1] & 0xff);
+    }
+
+    /*
+     * Called for each file actually written.
+     */
+    public void recordOutput(JavaTypeInstance type, String fileName) {
+        Entry entry = current.get(getGroup(type.getRawName()));
+        if (entry == null) return;
+        String absolute = new File(fileName).getAbsolutePath();
+        if (absolute.startsWith(outputRoot + File.separator)) {
+            absolute = absolute.substring(outputRoot.length() + 1);
+        }
+        entry.outputs.add(absolute);
+    }
+
+    /*
+     * Called if anything in the group failed - we'll want to try it again next time.
+     */
+    public void recordFailure(JavaTypeInstance type) {
+        Entry entry = current.get(getGroup(type.getRawName()));
+        if (entry == null) return;
+        entry.failed = true;
+    }
+
+    private static class Entry {
+        private final String hash;
+        private boolean failed;
+        private final List<String> outputs = ListFactory.newList();
+
+        private Entry(String hash) {
+            this.hash = hash;
+        }
+    }
+}
@@ -3,26 +3,81 @@ package org.benf.cfr.reader.state;
 import org.benf.cfr.reader.bytecode.analysis.types.MethodPrototype;
 import org.benf.cfr.reader.entities.ClassFile;
 import org.benf.cfr.reader.entities.classfilehelpers.OverloadMethodSet;
-import org.benf.cfr.reader.util.collections.MapFactory;
-import org.benf.cfr.reader.util.functors.UnaryFunction;
 
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 
-// The cost of retaining all overload information may become large.  Keeping it centrally allows us to flush it if in low
-// memory mode.
+// The cost of retaining all overload information may become large.  Keeping it centrally allows us to bound it,
+// and to share it between threads analysing the same input.
+//
+// Entries are keyed on the identity of both the class file and the prototype, so a cache only makes sense for
+// one DCCommonState - they're evicted least recently used first once we hit maxSize.
 public class OverloadMethodSetCache {
-    private final Map<ClassFile, Map<MethodPrototype, OverloadMethodSet>> content = MapFactory.newLazyMap(new UnaryFunction<ClassFile, Map<MethodPrototype, OverloadMethodSet>>() {
-        @Override
-        public Map<MethodPrototype, OverloadMethodSet> invoke(ClassFile arg) {
-            return MapFactory.newIdentityMap();
-        }
-    });
+    private final int maxSize;
+    private final Map<Key, OverloadMethodSet> content;
+    // So we can see whether the bound is costing us - reported with the progress metrics.
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public OverloadMethodSetCache(final int maxSize) {
+        this.maxSize = maxSize;
+        this.content = new LinkedHashMap<Key, OverloadMethodSet>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, OverloadMethodSet> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
 
     public OverloadMethodSet get(ClassFile classFile, MethodPrototype methodPrototype) {
-        return content.get(classFile).get(methodPrototype);
+        OverloadMethodSet res;
+        synchronized (content) {
+            res = content.get(new Key(classFile, methodPrototype));
+        }
+        if (res == null) {
+            misses.incrementAndGet();
+        } else {
+            hits.incrementAndGet();
+        }
+        return res;
     }
 
     public void set(ClassFile classFile, MethodPrototype methodPrototype, OverloadMethodSet overloadMethodSet) {
-        content.get(classFile).put(methodPrototype, overloadMethodSet);
+        if (maxSize == 0) return;
+        synchronized (content) {
+            content.put(new Key(classFile, methodPrototype), overloadMethodSet);
+        }
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    private static final class Key {
+        private final ClassFile classFile;
+        private final MethodPrototype methodPrototype;
+
+        private Key(ClassFile classFile, MethodPrototype methodPrototype) {
+            this.classFile = classFile;
+            this.methodPrototype = methodPrototype;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key other = (Key) o;
+            return classFile == other.classFile && methodPrototype == other.methodPrototype;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * System.identityHashCode(classFile) + System.identityHashCode(methodPrototype);
+        }
     }
 }
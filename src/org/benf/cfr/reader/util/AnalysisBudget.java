@@ -0,0 +1,110 @@
+package org.benf.cfr.reader.util;
+
+import org.benf.cfr.reader.util.getopt.Options;
+import org.benf.cfr.reader.util.getopt.OptionsImpl;
+
+/*
+ * Limit on how much effort we'll spend on a method (or all the methods of a class).
+ *
+ * Analysis is cooperative - the expensive loops call check(), which throws Exceeded once the innermost method
+ * budget (or anything enclosing it) has run out.  The method whose analysis gets that falls back to a dump of its
+ * bytecode.
+ *
+ * Budgets are per thread, and nest - analysing a method may require analysing another (eg a lambda body) first.
+ * If the outer budget runs out while we're doing the inner method, the outer one gives up, not the inner.
+ *
+ * Steps are a count of checks - unlike time, they give the same result every run.
+ */
+public class AnalysisBudget {
+    private static final ThreadLocal<AnalysisBudget> current = new ThreadLocal<AnalysisBudget>();
+
+    private final AnalysisBudget parent;
+    private final boolean forMethod;
+    private final long start;
+    private final long maxNanos;
+    private final long maxSteps;
+    private long steps;
+    private boolean exceeded;
+
+    private AnalysisBudget(AnalysisBudget parent, boolean forMethod, long maxMillis, long maxSteps) {
+        this.parent = parent;
+        this.forMethod = forMethod;
+        this.start = System.nanoTime();
+        this.maxNanos = maxMillis > 0 ? maxMillis * 1000000L : Long.MAX_VALUE;
+        this.maxSteps = maxSteps > 0 ? maxSteps : Long.MAX_VALUE;
+    }
+
+    /*
+     * Null if there's no class budget - end(null) is fine.
+     */
+    public static AnalysisBudget beginClass(Options options) {
+        int maxMillis = options.getOption(OptionsImpl.CLASS_BUDGET_MS);
+        if (maxMillis <= 0) return null;
+        AnalysisBudget res = new AnalysisBudget(current.get(), false, maxMillis, 0);
+        current.set(res);
+        return res;
+    }
+
+    /*
+     * Null if neither this method nor anything enclosing it has a budget.
+     */
+    public static AnalysisBudget beginMethod(Options options) {
+        AnalysisBudget parent = current.get();
+        int maxMillis = options.getOption(OptionsImpl.METHOD_BUDGET_MS);
+        int maxSteps = options.getOption(OptionsImpl.METHOD_BUDGET_STEPS);
+        if (parent == null && maxMillis <= 0 && maxSteps <= 0) return null;
+        AnalysisBudget res = new AnalysisBudget(parent, true, maxMillis, maxSteps);
+        current.set(res);
+        return res;
+    }
+
+    public static void end(AnalysisBudget budget) {
+        if (budget != null) current.set(budget.parent);
+    }
+
+    public static void check() {
+        AnalysisBudget budget = current.get();
+        // Only analysis of a method can fall back, so there's no point stopping anything else.
+        if (budget == null || !budget.forMethod) return;
+        long now = System.nanoTime();
+        for (AnalysisBudget b = budget; b != null; b = b.parent) {
+            if (b.forMethod) b.steps++;
+            if (b.exceeded || b.steps > b.maxSteps || now - b.start > b.maxNanos) {
+                // Sticky, so that if someone swallows this, the next check will throw again.
+                b.exceeded = true;
+                throw new Exceeded(b);
+            }
+        }
+    }
+
+    /*
+     * Should a method with this budget give up, because of the given budget running out?
+     * Yes if it's ours, or if we're the outermost method and the class has run out.
+     */
+    public boolean shouldFallBack(AnalysisBudget exceeded) {
+        if (exceeded == this) return true;
+        for (AnalysisBudget b = parent; b != null; b = b.parent) {
+            if (b.forMethod) return false;
+        }
+        return true;
+    }
+
+    public String describe() {
+        long millis = (System.nanoTime() - start) / 1000000L;
+        return (forMethod ? "method" : "class") + " analysis budget exceeded after " + millis + "ms" +
+                (forMethod ? ", " + steps + " steps" : "");
+    }
+
+    public static class Exceeded extends RuntimeException {
+        private final AnalysisBudget budget;
+
+        private Exceeded(AnalysisBudget budget) {
+            super("Analysis budget exceeded");
+            this.budget = budget;
+        }
+
+        public AnalysisBudget getBudget() {
+            return budget;
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package org.benf.cfr.reader.util;
+
+import org.benf.cfr.reader.util.collections.MapFactory;
+
+import java.util.Map;
+
+/*
+ * Just enough JSON for a line based protocol - objects whose values are strings, numbers, booleans, null, or
+ * further objects.  Numbers and booleans are returned as their text.  No arrays - we don't need them.
+ */
+public class LineJson {
+    private final String in;
+    private int pos;
+
+    private LineJson(String in) {
+        this.in = in;
+    }
+
+    public static Map<String, Object> parseObject(String in) {
+        LineJson parser = new LineJson(in);
+        Map<String, Object> res = parser.readObject();
+        parser.skipWhitespace();
+        if (parser.pos != in.length()) throw parser.error("Trailing content");
+        return res;
+    }
+
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException(message + " at " + pos);
+    }
+
+    private void skipWhitespace() {
+        while (pos < in.length() && Character.isWhitespace(in.charAt(pos))) pos++;
+    }
+
+    private char peek() {
+        skipWhitespace();
+        if (pos >= in.length()) throw error("Unexpected end of input");
+        return in.charAt(pos);
+    }
+
+    private void expect(char c) {
+        if (peek() != c) throw error("Expected '" + c + "'");
+        pos++;
+    }
+
+    private Map<String, Object> readObject() {
+        Map<String, Object> res = MapFactory.newOrderedMap();
+        expect('{');
+        if (peek() == '}') {
+            pos++;
+            return res;
+        }
+        while (true) {
+            String key = readString();
+            expect(':');
+            res.put(key, readValue());
+            char c = peek();
+            pos++;
+            if (c == '}') return res;
+            if (c != ',') throw error("Expected ',' or '}'");
+        }
+    }
+
+    private Object readValue() {
+        char c = peek();
+        switch (c) {
+            case '{':
+                return readObject();
+            case '"':
+                return readString();
+            case '[':
+                throw error("Arrays not supported");
+        }
+        int start = pos;
+        while (pos < in.length() && ",}] \t\r\n".indexOf(in.charAt(pos)) == -1) pos++;
+        String literal = in.substring(start, pos);
+        if (literal.length() == 0) throw error("Expected value");
+        return literal.equals("null") ? null : literal;
+    }
+
+    private String readString() {
+        expect('"');
+        StringBuilder sb = new StringBuilder();
+        while (true) {
+            if (pos >= in.length()) throw error("Unterminated string");
+            char c = in.charAt(pos++);
+            if (c == '"') return sb.toString();
+            if (c != '\\') {
+                sb.append(c);
+                continue;
+            }
+            if (pos >= in.length()) throw error("Unterminated string");
+            c = in.charAt(pos++);
+            switch (c) {
+                case 'n':
+                    sb.append('\n');
+                    break;
+                case 'r':
+                    sb.append('\r');
+                    break;
+                case 't':
+                    sb.append('\t');
+                    break;
+                case 'b':
+                    sb.append('\b');
+                    break;
+                case 'f':
+                    sb.append('\f');
+                    break;
+                case 'u':
+                    if (pos + 4 > in.length()) throw error("Bad unicode escape");
+                    sb.append((char) Integer.parseInt(in.substring(pos, pos + 4), 16));
+                    pos += 4;
+                    break;
+                default:
+                    sb.append(c);
+            }
+        }
+    }
+
+    public static StringBuilder quote(StringBuilder sb, String s) {
+        if (s == null) return sb.append("null");
+        sb.append('"');
+        for (int x = 0, len = s.length(); x < len; ++x) {
+            char c = s.charAt(x);
+            switch (c) {
+                case '"':
+                    sb.append("\\\"");
+                    break;
+                case '\\':
+                    sb.append("\\\\");
+                    break;
+                case '\n':
+                    sb.append("\\n");
+                    break;
+                case '\r':
+                    sb.append("\\r");
+                    break;
+                case '\t':
+                    sb.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+            }
+        }
+        return sb.append('"');
+    }
+}
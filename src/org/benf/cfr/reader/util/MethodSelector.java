@@ -0,0 +1,149 @@
+package org.benf.cfr.reader.util;
+
+import org.benf.cfr.reader.bytecode.analysis.types.InnerClassInfo;
+import org.benf.cfr.reader.bytecode.analysis.types.JavaTypeInstance;
+import org.benf.cfr.reader.entities.AccessFlagMethod;
+import org.benf.cfr.reader.entities.Method;
+import org.benf.cfr.reader.util.collections.ListFactory;
+import org.benf.cfr.reader.util.collections.SetFactory;
+
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/*
+ * Parsed form of the methodselector option - a comma separated list of
+ *
+ *   classglob::methodpattern
+ *
+ * In the class glob, * matches within a package segment, ** matches anything.  The method pattern matches
+ * the name, or if it contains '(', the name and descriptor - eg exec*(Ljava/lang/String;)*.
+ * Omitting ::methodpattern selects every method.
+ *
+ * Some unselected methods are still analysed (if asked for), because selected code is rewritten from them -
+ *   synthetic methods - lambda bodies and accessors are inlined from them.
+ *   static initialisers and constructors of a selected class - assertions, enum and field initialisers.
+ *   everything in classes nested in a selected class - anonymous class bodies, switch maps ($1), enums.
+ * We don't attempt to work out which ones a selected method actually needs; they're generally small.
+ */
+public class MethodSelector {
+    private final List<Pattern> classPatterns = ListFactory.newList();
+    private final List<Pattern> methodPatterns = ListFactory.newList();
+    private final List<Boolean> withDescriptors = ListFactory.newList();
+
+    private MethodSelector(String spec) {
+        for (String part : spec.split(",")) {
+            part = part.trim();
+            if (part.length() == 0) continue;
+            int idx = part.indexOf("::");
+            String classGlob = idx == -1 ? part : part.substring(0, idx);
+            String methodGlob = idx == -1 ? "*" : part.substring(idx + 2);
+            classPatterns.add(Pattern.compile(globToRegex(classGlob, true)));
+            methodPatterns.add(Pattern.compile(globToRegex(methodGlob, false)));
+            withDescriptors.add(methodGlob.indexOf('(') != -1);
+        }
+        if (classPatterns.isEmpty()) {
+            throw new IllegalArgumentException("Empty method selector");
+        }
+    }
+
+    public static MethodSelector create(String spec) {
+        if (spec == null) return null;
+        return new MethodSelector(spec);
+    }
+
+    private static String globToRegex(String glob, boolean dotted) {
+        StringBuilder sb = new StringBuilder();
+        int len = glob.length();
+        for (int x = 0; x < len; ++x) {
+            char c = glob.charAt(x);
+            if (c == '*') {
+                if (dotted && x + 1 < len && glob.charAt(x + 1) == '*') {
+                    sb.append(".*");
+                    ++x;
+                } else {
+                    sb.append(dotted ? "[^.]*" : ".*");
+                }
+            } else if (c == '?') {
+                sb.append(dotted ? "[^.]" : ".");
+            } else {
+                sb.append(Pattern.quote(String.valueOf(c)));
+            }
+        }
+        return sb.toString();
+    }
+
+    private boolean selectsClass(String className) {
+        for (Pattern pattern : classPatterns) {
+            if (pattern.matcher(className).matches()) return true;
+        }
+        return false;
+    }
+
+    /*
+     * Prune the classes of a jar to those which could contain a selected method.
+     * Nested classes are dumped with their outer class, so if we want a nested class, keep its outer.
+     */
+    public List<JavaTypeInstance> selectClasses(List<JavaTypeInstance> types) {
+        Set<String> selected = SetFactory.newSet();
+        for (JavaTypeInstance type : types) {
+            String rawName = type.getRawName();
+            if (!selectsClass(rawName)) continue;
+            selected.add(rawName);
+            int idx = rawName.indexOf(MiscConstants.INNER_CLASS_SEP_CHAR);
+            if (idx > 0) selected.add(rawName.substring(0, idx));
+        }
+        List<JavaTypeInstance> res = ListFactory.newList();
+        for (JavaTypeInstance type : types) {
+            if (selected.contains(type.getRawName())) res.add(type);
+        }
+        return res;
+    }
+
+    public boolean isSelected(Method method) {
+        String className = method.getClassFile().getClassType().getRawName();
+        String name = method.getName();
+        String withDescriptor = null;
+        for (int x = 0, len = classPatterns.size(); x < len; ++x) {
+            if (!classPatterns.get(x).matcher(className).matches()) continue;
+            String target = name;
+            if (withDescriptors.get(x)) {
+                if (withDescriptor == null) withDescriptor = name + method.getRawDescriptor();
+                target = withDescriptor;
+            }
+            if (methodPatterns.get(x).matcher(target).matches()) return true;
+        }
+        return false;
+    }
+
+    /*
+     * Nested classes are named after their outer - p.A$1 is in p.A, as is p.A$B$1.
+     */
+    private boolean selectsEnclosingClass(String className) {
+        for (int idx = className.indexOf(MiscConstants.INNER_CLASS_SEP_CHAR); idx > 0;
+             idx = className.indexOf(MiscConstants.INNER_CLASS_SEP_CHAR, idx + 1)) {
+            if (selectsClass(className.substring(0, idx))) return true;
+        }
+        return false;
+    }
+
+    public boolean needsAnalysis(Method method) {
+        if (method.testAccessFlag(AccessFlagMethod.ACC_SYNTHETIC) || isSelected(method)) return true;
+        String className = method.getClassFile().getClassType().getRawName();
+        if (selectsEnclosingClass(className)) return true;
+        if (!selectsClass(className)) return false;
+        String name = method.getName();
+        return name.equals(MiscConstants.INIT_METHOD) || name.equals(MiscConstants.STATIC_INIT_METHOD);
+    }
+
+    /*
+     * Anonymous and method scoped classes are part of the method which declares them, so are shown in full.
+     */
+    public boolean isVisible(Method method) {
+        if (isSelected(method)) return true;
+        JavaTypeInstance classType = method.getClassFile().getClassType();
+        InnerClassInfo innerClassInfo = classType.getInnerClassHereInfo();
+        if (!(innerClassInfo.isAnonymousClass() || innerClassInfo.isMethodScopedClass())) return false;
+        return selectsEnclosingClass(classType.getRawName());
+    }
+}
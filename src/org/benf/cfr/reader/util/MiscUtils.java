@@ -2,6 +2,7 @@ package org.benf.cfr.reader.util;
 
 import org.benf.cfr.reader.util.functors.Predicate;
 
+import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 public class MiscUtils {
@@ -37,6 +38,55 @@ public class MiscUtils {
         };
     }
 
+    /*
+     * As mkRegexFilter(pat, true), but testing class file paths from a jar (a/b/C.class, or for a multi release
+     * jar, META-INF/versions/9/a/b/C.class) against the fully qualified class name.
+     *
+     * If the pattern is anchored, anything outside its literal prefix is rejected without running the regex,
+     * so picking one package out of a large jar is cheap.
+     */
+    public static Predicate<String> mkClassPathFilter(String pat) {
+        final Predicate<String> nameFilter = mkRegexFilter(pat, true);
+        if (pat == null) return nameFilter;
+        final String prefix = getLiteralPrefix(pat);
+        return new Predicate<String>() {
+            @Override
+            public boolean test(String in) {
+                Matcher matcher = MiscConstants.MULTI_RELEASE_PATH_PATTERN.matcher(in);
+                if (matcher.matches()) in = matcher.group(2);
+                if (in.endsWith(".class")) in = in.substring(0, in.length() - 6);
+                String name = in.replace('/', '.');
+                if (prefix != null && !name.startsWith(prefix)) return false;
+                return nameFilter.test(name);
+            }
+        };
+    }
+
+    /*
+     * Literal text every match of an anchored (and positive) pattern must start with.
+     * eg ^org\.foo\.Ba[rz] gives org.foo.Ba
+     */
+    private static String getLiteralPrefix(String pat) {
+        if (!pat.startsWith("^") || pat.indexOf('|') != -1) return null;
+        StringBuilder sb = new StringBuilder();
+        for (int x = 1, len = pat.length(); x < len; ++x) {
+            char c = pat.charAt(x);
+            if (c == '\\' && x + 1 < len && pat.charAt(x + 1) == '.') {
+                sb.append('.');
+                ++x;
+            } else if (Character.isLetterOrDigit(c) || c == '_') {
+                sb.append(c);
+            } else {
+                // If what we've just taken is quantified, it's not required.
+                if ((c == '?' || c == '*' || c == '{') && sb.length() > 0) {
+                    sb.setLength(sb.length() - 1);
+                }
+                break;
+            }
+        }
+        return sb.length() == 0 ? null : sb.toString();
+    }
+
     /* Sometimes, we want a no-op inside an if statement, and we don't want to ugly things
      * up by letting code analysers say we're no good kids, hanging around wasting time.
      */
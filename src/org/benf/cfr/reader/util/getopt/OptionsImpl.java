@@ -6,11 +6,14 @@ import org.benf.cfr.reader.util.ClassFileVersion;
 import org.benf.cfr.reader.util.StringUtils;
 import org.benf.cfr.reader.util.Troolean;
 import org.benf.cfr.reader.util.collections.ListFactory;
+import org.benf.cfr.reader.util.collections.MapFactory;
+import org.benf.cfr.reader.util.collections.SetFactory;
 
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 public class OptionsImpl implements Options {
     private final Map<String, String> opts;
@@ -383,6 +386,9 @@ public class OptionsImpl implements Options {
     public static final PermittedOptionProvider.Argument<String> OUTPUT_PATH = new PermittedOptionProvider.Argument<String>(
             "outputpath", defaultNullStringDecoder,
             "Decompile to files in [directory]");
+    public static final PermittedOptionProvider.Argument<String> OUTPUT_JAR = new PermittedOptionProvider.Argument<String>(
+            "outputjar", defaultNullStringDecoder,
+            "Decompile to a single sources jar [file], with the same layout as 'outputdir'");
     public static final PermittedOptionProvider.Argument<Troolean> CLOBBER_FILES = new PermittedOptionProvider.Argument<Troolean>(
             "clobber", defaultNeitherTrooleanDecoder,
             "Overwrite files when using option 'outputpath'");
@@ -452,6 +458,12 @@ public class OptionsImpl implements Options {
     public static final PermittedOptionProvider.Argument<String> METHODNAME = new PermittedOptionProvider.Argument<String>(
             "methodname", defaultNullStringDecoder,
             "Name of method to analyse");
+    public static final PermittedOptionProvider.Argument<String> METHOD_SELECTOR = new PermittedOptionProvider.Argument<String>(
+            "methodselector", defaultNullStringDecoder,
+            "Comma separated list of classglob::methodpattern (eg org.foo.**::exec*(Ljava/lang/String;)*) - only analyse and dump matching methods (and the synthetic methods they use).  Works for jars, unlike methodname.");
+    public static final PermittedOptionProvider.Argument<String> INCREMENTAL_MANIFEST = new PermittedOptionProvider.Argument<String>(
+            "incremental", defaultNullStringDecoder,
+            "Path of manifest from a previous run over an earlier version of this jar (requires outputdir).  Only changed classes, and those that refer to them, are decompiled again, the rest of the previous output is reused.  The manifest is rewritten for the next run.");
     public static final PermittedOptionProvider.Argument<String> EXTRA_CLASS_PATH = new PermittedOptionProvider.Argument<String>(
             "extraclasspath", defaultNullStringDecoder,
             "additional class path - classes in this classpath will be used if needed.");
@@ -476,12 +488,67 @@ public class OptionsImpl implements Options {
     public static final PermittedOptionProvider.Argument<String> OBFUSCATION_PATH = new PermittedOptionProvider.Argument<String>(
             "obfuscationpath", defaultNullStringDecoder,
             "Path to obfuscation symbol remapping file");
-
+    public static final PermittedOptionProvider.Argument<Integer> OVERLOAD_CACHE_SIZE = new PermittedOptionProvider.Argument<Integer>(
+            "overloadcachesize", new DefaultingIntDecoder(50000),
+            "Maximum number of overload method sets cached for each input");
+    public static final PermittedOptionProvider.Argument<Integer> ANALYSIS_MEMO_BUDGET = new PermittedOptionProvider.Argument<Integer>(
+            "analysismemobudget", new DefaultingIntDecoder(1000000),
+            "When using lomem, total bytecode length of released methods whose successful recovery pass may be (softly) retained, so reanalysis can skip the passes which failed.  0 to disable.");
+    public static final PermittedOptionProvider.Argument<Integer> RETAINED_CONTENT_BUDGET = new PermittedOptionProvider.Argument<Integer>(
+            "retainedcontentbudget", new DefaultingIntDecoder(64 * 1024 * 1024),
+            "For sessions, total bytes of jar content retained between requests (least recently used is dropped first).  0 to disable.");
+    public static final PermittedOptionProvider.Argument<Integer> METHOD_BUDGET_MS = new PermittedOptionProvider.Argument<Integer>(
+            "methodbudgetms", new DefaultingIntDecoder(0),
+            "Give up analysing a method after this many milliseconds, and show its bytecode instead.  0 for no limit.");
+    public static final PermittedOptionProvider.Argument<Integer> METHOD_BUDGET_STEPS = new PermittedOptionProvider.Argument<Integer>(
+            "methodbudgetsteps", new DefaultingIntDecoder(0),
+            "As 'methodbudgetms', but counting analysis steps, which (unlike time) is repeatable.  0 for no limit.");
+    public static final PermittedOptionProvider.Argument<Integer> CLASS_BUDGET_MS = new PermittedOptionProvider.Argument<Integer>(
+            "classbudgetms", new DefaultingIntDecoder(0),
+            "Once this many milliseconds have been spent analysing a class, show bytecode for any methods not yet analysed.  0 for no limit.");
+    public static final PermittedOptionProvider.Argument<Boolean> STACK_MAP_HINTS = new PermittedOptionProvider.Argument<Boolean>(
+            "stackmaphints", defaultFalseBooleanDecoder,
+            "Use StackMapTable frames (class files >= 51) to find slots shared by variables of different types up front, rather than by a type clash recovery pass.");
+    public static final PermittedOptionProvider.Argument<Integer> PROGRESS_INTERVAL = new PermittedOptionProvider.Argument<Integer>(
+            "progressinterval", new DefaultingIntDecoder(1000),
+            "If set, rather than a line per class, report throughput (classes/s, bytes/s, failed methods, overload cache hits, slowest classes, heap) every this many milliseconds, and at the end of each path.");
+    public static final PermittedOptionProvider.Argument<Integer> RENAME_THREADS = new PermittedOptionProvider.Argument<Integer>(
+            "renamethreads", new DefaultingIntDecoder(1),
+            "Number of threads used to resolve member names for 'renamedupmembers' / 'renameenumidents' - unrelated parts of the class hierarchy are resolved independently.");
+    public static final PermittedOptionProvider.Argument<String> RENAME_CACHE = new PermittedOptionProvider.Argument<String>(
+            "renamecache", defaultNullStringDecoder,
+            "Path of a file in which to keep the result of member name resolution, so later runs over the same classes can skip it.");
+
+
+    /*
+     * These change where output goes, or how quickly we get it - not what it says.
+     */
+    private static final Set<String> OUTPUT_NEUTRAL = SetFactory.newSet(
+            OUTPUT_DIR.getName(), OUTPUT_PATH.getName(), OUTPUT_JAR.getName(), CLOBBER_FILES.getName(),
+            SILENT.getName(), HELP.getName(), INCREMENTAL_MANIFEST.getName(), PROGRESS_INTERVAL.getName(),
+            RENAME_THREADS.getName(), RENAME_CACHE.getName(), LOMEM.getName(),
+            OVERLOAD_CACHE_SIZE.getName(), ANALYSIS_MEMO_BUDGET.getName(), RETAINED_CONTENT_BUDGET.getName());
 
     public OptionsImpl(Map<String, String> opts) {
         this.opts = new HashMap<String, String>(opts);
     }
 
+    /*
+     * Everything set which could affect the output, in a stable order - so that anything kept between runs
+     * can tell if it was produced the same way.
+     */
+    public static String getOutputFingerprint(Options options) {
+        if (!(options instanceof OptionsImpl)) return "";
+        Map<String, String> sorted = MapFactory.newTreeMap();
+        sorted.putAll(((OptionsImpl) options).opts);
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<String, String> entry : sorted.entrySet()) {
+            if (OUTPUT_NEUTRAL.contains(entry.getKey())) continue;
+            sb.append(entry.getKey()).append('=').append(entry.getValue()).append(';');
+        }
+        return sb.toString();
+    }
+
     @Override
     public <T> T getOption(PermittedOptionProvider.ArgumentParam<T, Void> option) {
         return option.getFn().invoke(opts.get(option.getName()), null, this);
@@ -518,7 +585,7 @@ public class OptionsImpl implements Options {
                     REMOVE_DEAD_METHODS, REMOVE_BAD_GENERICS, SUGAR_ASSERTS, SUGAR_BOXING, SHOW_CFR_VERSION,
                     DECODE_FINALLY, TIDY_MONITORS, LENIENT, DUMP_CLASS_PATH,
                     DECOMPILER_COMMENTS, FORCE_TOPSORT, FORCE_TOPSORT_EXTRA, FORCE_PRUNE_EXCEPTIONS, OUTPUT_DIR,
-                    OUTPUT_PATH, CLOBBER_FILES, JAR_FILTER, IMPORT_FILTER,
+                    OUTPUT_PATH, OUTPUT_JAR, CLOBBER_FILES, JAR_FILTER, IMPORT_FILTER,
                     SUGAR_STRINGBUFFER, SUGAR_STRINGBUILDER, SUGAR_STRINGCONCATFACTORY, SILENT, RECOVER, ECLIPSE, OVERRIDES, SHOW_INFERRABLE,
                     FORCE_AGGRESSIVE_EXCEPTION_AGG, FORCE_COND_PROPAGATE, HIDE_UTF8, HIDE_LONGSTRINGS, COMMENT_MONITORS,
                     ALLOW_CORRECTING, LABELLED_BLOCKS, JAVA_4_CLASS_OBJECTS, HIDE_LANG_IMPORTS, FORCE_PASS,
@@ -528,7 +595,10 @@ public class OptionsImpl implements Options {
                     AGGRESSIVE_SIZE_REDUCTION_THRESHOLD, EXTRA_CLASS_PATH, PULL_CODE_CASE, HELP, ELIDE_SCALA,
                     CASE_INSENSITIVE_FS_RENAME, RELINK_CONSTANT_STRINGS, REWRITE_TRY_RESOURCES, IGNORE_EXCEPTIONS,
                     IGNORE_EXCEPTIONS_ALWAYS, METHODNAME, SKIP_BATCH_INNER_CLASSES,
-                    OBFUSCATION_PATH);
+                    OBFUSCATION_PATH, OVERLOAD_CACHE_SIZE, LOMEM, ANALYSIS_MEMO_BUDGET, RETAINED_CONTENT_BUDGET, METHOD_SELECTOR, INCREMENTAL_MANIFEST,
+                    METHOD_BUDGET_MS, METHOD_BUDGET_STEPS, CLASS_BUDGET_MS, PROGRESS_INTERVAL,
+                    STACK_MAP_HINTS,
+                    RENAME_THREADS, RENAME_CACHE);
         }
 
         @Override
@@ -20,22 +20,32 @@ public class FileDumper extends StreamDumper {
     private static final int TRUNC_PREFIX_LEN = 150;
     private static int truncCount = 0;
 
-    private String mkFilename(String dir, Pair<String, String> names, SummaryDumper summaryDumper) {
+    /*
+     * Path of the source file for a class, relative to the output root.
+     * Shared with SourceJarDumper, so a sources jar has the same layout as an output directory.
+     */
+    static String mkRelativeFilename(Pair<String, String> names, String separator, SummaryDumper summaryDumper) {
         String packageName = names.getFirst();
         String className = names.getSecond();
         if (className.length() > MAX_FILE_LEN_MINUS_EXT) {
             /*
              * Have to try to find a replacement name.
              */
-            className = className.substring(0, TRUNC_PREFIX_LEN) + "_cfr_" + (truncCount++);
+            synchronized (FileDumper.class) {
+                className = className.substring(0, TRUNC_PREFIX_LEN) + "_cfr_" + (truncCount++);
+            }
             summaryDumper.notify("Class name " + names.getSecond() + " was shortened to " + className + " due to filesystem limitations.");
         }
 
-        return dir + File.separator + packageName.replace(".", File.separator) +
-                ((packageName.length() == 0) ? "" : File.separator) +
+        return packageName.replace(".", separator) +
+                ((packageName.length() == 0) ? "" : separator) +
                 className + ".java";
     }
 
+    private String mkFilename(String dir, Pair<String, String> names, SummaryDumper summaryDumper) {
+        return dir + File.separator + mkRelativeFilename(names, File.separator, summaryDumper);
+    }
+
     FileDumper(String dir, boolean clobber, JavaTypeInstance type, SummaryDumper summaryDumper, TypeUsageInformation typeUsageInformation, Options options, IllegalIdentifierDump illegalIdentifierDump) {
         super(typeUsageInformation, options, illegalIdentifierDump, new MovableDumperContext());
         this.type = type;
@@ -76,7 +86,7 @@ public class FileDumper extends StreamDumper {
         }
     }
 
-    String getFileName() {
+    public String getFileName() {
         return path;
     }
 
@@ -34,6 +34,15 @@ public class FileSummaryDumper implements SummaryDumper {
         }
     }
 
+    /*
+     * For when the summary isn't going to a file of its own.
+     */
+    FileSummaryDumper(BufferedWriter writer, Options options, DecompilerCommentSource additional) {
+        this.additionalComments = additional;
+        this.options = options;
+        this.writer = writer;
+    }
+
     @Override
     public void notify(String message) {
         try {
@@ -26,7 +26,9 @@ public class InternalDumperFactoryImpl implements DumperFactory {
         this.checkDupes = OsInfo.OS().isCaseInsensitive() && !options.getOption(OptionsImpl.CASE_INSENSITIVE_FS_RENAME);
         this.options = options;
         if (!options.getOption(OptionsImpl.SILENT) && (options.optionIsSet(OptionsImpl.OUTPUT_DIR) || options.optionIsSet(OptionsImpl.OUTPUT_PATH))) {
-            progressDumper = new ProgressDumperStdErr();
+            progressDumper = options.optionIsSet(OptionsImpl.PROGRESS_INTERVAL) ?
+                    ProgressDumperThroughput.toStdErr(options.getOption(OptionsImpl.PROGRESS_INTERVAL)) :
+                    new ProgressDumperStdErr();
         } else {
             progressDumper = ProgressDumperNop.INSTANCE;
         }
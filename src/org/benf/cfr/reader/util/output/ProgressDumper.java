@@ -5,4 +5,11 @@ import org.benf.cfr.reader.bytecode.analysis.types.JavaTypeInstance;
 public interface ProgressDumper {
     void analysingType(JavaTypeInstance type);
     void analysingPath(String path);
+
+    /*
+     * What a top level class cost.  Bytes are of all class files loaded while doing it, overload cache hits and
+     * misses are of lookups made while doing it.
+     */
+    void analysedType(JavaTypeInstance type, long nanos, long bytes, int failedMethods, int recoveredMethods, long overloadCacheHits, long overloadCacheMisses);
+    void analysedPath(String path);
 }
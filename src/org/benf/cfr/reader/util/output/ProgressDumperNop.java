@@ -14,4 +14,12 @@ public class ProgressDumperNop implements ProgressDumper {
     @Override
     public void analysingPath(String path) {
     }
+
+    @Override
+    public void analysedType(JavaTypeInstance type, long nanos, long bytes, int failedMethods, int recoveredMethods, long overloadCacheHits, long overloadCacheMisses) {
+    }
+
+    @Override
+    public void analysedPath(String path) {
+    }
 }
@@ -14,4 +14,12 @@ public class ProgressDumperStdErr implements ProgressDumper {
     public void analysingPath(String path) {
         System.err.println("Processing " + path + " (use " + OptionsImpl.SILENT.getName() + " to silence)");
     }
+
+    @Override
+    public void analysedType(JavaTypeInstance type, long nanos, long bytes, int failedMethods, int recoveredMethods, long overloadCacheHits, long overloadCacheMisses) {
+    }
+
+    @Override
+    public void analysedPath(String path) {
+    }
 }
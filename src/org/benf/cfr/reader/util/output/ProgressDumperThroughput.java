@@ -0,0 +1,236 @@
+package org.benf.cfr.reader.util.output;
+
+import org.benf.cfr.reader.api.OutputSinkFactory;
+import org.benf.cfr.reader.api.SinkReturns;
+import org.benf.cfr.reader.bytecode.analysis.types.JavaTypeInstance;
+import org.benf.cfr.reader.util.collections.ListFactory;
+
+import java.util.Collections;
+import java.util.List;
+
+/*
+ * Rather than a line per class, aggregate what classes cost, and report every so often (and at the end of a path).
+ *
+ * Heap is sampled at the end of each class, so the high water mark is approximate - it's what was live (or not yet
+ * collected) then, not the true peak.
+ */
+public class ProgressDumperThroughput implements ProgressDumper {
+    private static final int SLOWEST_COUNT = 5;
+
+    private final OutputSinkFactory.Sink<SinkReturns.ProgressMetrics> sink;
+    private final long intervalNanos;
+
+    private String path = "";
+    private long start = System.nanoTime();
+    private long lastReport = start;
+    private int classes;
+    private long bytes;
+    private int failedMethods;
+    private int recoveredMethods;
+    private long overloadCacheHits;
+    private long overloadCacheMisses;
+    private long heapHighWater;
+    private final List<Slow> slowest = ListFactory.newList();
+
+    public ProgressDumperThroughput(OutputSinkFactory.Sink<SinkReturns.ProgressMetrics> sink, long intervalMillis) {
+        this.sink = sink;
+        this.intervalNanos = Math.max(0, intervalMillis) * 1000000L;
+    }
+
+    /*
+     * For the command line - reports are written to stderr, as the per class lines would have been.
+     */
+    public static ProgressDumper toStdErr(long intervalMillis) {
+        return new ProgressDumperThroughput(new OutputSinkFactory.Sink<SinkReturns.ProgressMetrics>() {
+            @Override
+            public void write(SinkReturns.ProgressMetrics sinkable) {
+                System.err.println(sinkable);
+            }
+        }, intervalMillis);
+    }
+
+    @Override
+    public void analysingType(JavaTypeInstance type) {
+    }
+
+    @Override
+    public void analysingPath(String path) {
+        this.path = path;
+        start = System.nanoTime();
+        lastReport = start;
+        classes = 0;
+        bytes = 0;
+        failedMethods = 0;
+        recoveredMethods = 0;
+        overloadCacheHits = 0;
+        overloadCacheMisses = 0;
+        heapHighWater = 0;
+        slowest.clear();
+    }
+
+    @Override
+    public void analysedType(JavaTypeInstance type, long nanos, long bytes, int failedMethods, int recoveredMethods, long overloadCacheHits, long overloadCacheMisses) {
+        classes++;
+        this.bytes += bytes;
+        this.failedMethods += failedMethods;
+        this.recoveredMethods += recoveredMethods;
+        this.overloadCacheHits += overloadCacheHits;
+        this.overloadCacheMisses += overloadCacheMisses;
+        Runtime runtime = Runtime.getRuntime();
+        heapHighWater = Math.max(heapHighWater, runtime.totalMemory() - runtime.freeMemory());
+        noteSlow(type.getRawName(), nanos);
+
+        long now = System.nanoTime();
+        if (now - lastReport >= intervalNanos) {
+            lastReport = now;
+            sink.write(snapshot(now, false));
+        }
+    }
+
+    @Override
+    public void analysedPath(String path) {
+        // A single class isn't announced with analysingPath.
+        this.path = path;
+        sink.write(snapshot(System.nanoTime(), true));
+    }
+
+    private void noteSlow(String name, long nanos) {
+        int idx = slowest.size();
+        while (idx > 0 && slowest.get(idx - 1).nanos < nanos) idx--;
+        if (idx >= SLOWEST_COUNT) return;
+        slowest.add(idx, new Slow(name, nanos));
+        if (slowest.size() > SLOWEST_COUNT) slowest.remove(SLOWEST_COUNT);
+    }
+
+    private SinkReturns.ProgressMetrics snapshot(long now, boolean isFinal) {
+        List<String> slow = ListFactory.newList();
+        for (Slow s : slowest) {
+            slow.add(s.name + " (" + (s.nanos / 1000000L) + " ms)");
+        }
+        return new Metrics(path, classes, (now - start) / 1000000L, bytes, failedMethods, recoveredMethods,
+                overloadCacheHits, overloadCacheMisses, Collections.unmodifiableList(slow), heapHighWater, isFinal);
+    }
+
+    private static class Slow {
+        private final String name;
+        private final long nanos;
+
+        private Slow(String name, long nanos) {
+            this.name = name;
+            this.nanos = nanos;
+        }
+    }
+
+    private static class Metrics implements SinkReturns.ProgressMetrics {
+        private final String path;
+        private final int classes;
+        private final long elapsedMillis;
+        private final long bytes;
+        private final int failedMethods;
+        private final int recoveredMethods;
+        private final long overloadCacheHits;
+        private final long overloadCacheMisses;
+        private final List<String> slowest;
+        private final long heapHighWater;
+        private final boolean isFinal;
+
+        private Metrics(String path, int classes, long elapsedMillis, long bytes, int failedMethods, int recoveredMethods, long overloadCacheHits, long overloadCacheMisses, List<String> slowest, long heapHighWater, boolean isFinal) {
+            this.path = path;
+            this.classes = classes;
+            this.elapsedMillis = elapsedMillis;
+            this.bytes = bytes;
+            this.failedMethods = failedMethods;
+            this.recoveredMethods = recoveredMethods;
+            this.overloadCacheHits = overloadCacheHits;
+            this.overloadCacheMisses = overloadCacheMisses;
+            this.slowest = slowest;
+            this.heapHighWater = heapHighWater;
+            this.isFinal = isFinal;
+        }
+
+        @Override
+        public String getPath() {
+            return path;
+        }
+
+        @Override
+        public int getClassesAnalysed() {
+            return classes;
+        }
+
+        @Override
+        public long getElapsedMillis() {
+            return elapsedMillis;
+        }
+
+        private double perSecond(double amount) {
+            return elapsedMillis == 0 ? 0 : amount * 1000 / elapsedMillis;
+        }
+
+        @Override
+        public double getClassesPerSecond() {
+            return perSecond(classes);
+        }
+
+        @Override
+        public double getBytesPerSecond() {
+            return perSecond(bytes);
+        }
+
+        @Override
+        public int getFailedMethods() {
+            return failedMethods;
+        }
+
+        @Override
+        public int getRecoveredMethods() {
+            return recoveredMethods;
+        }
+
+        @Override
+        public long getOverloadCacheHits() {
+            return overloadCacheHits;
+        }
+
+        @Override
+        public long getOverloadCacheMisses() {
+            return overloadCacheMisses;
+        }
+
+        @Override
+        public List<String> getSlowestClasses() {
+            return slowest;
+        }
+
+        @Override
+        public long getHeapHighWaterBytes() {
+            return heapHighWater;
+        }
+
+        @Override
+        public boolean isFinal() {
+            return isFinal;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            sb.append(isFinal ? "Processed " : "Processing ").append(path).append(" : ");
+            sb.append(classes).append(" classes in ").append(String.format("%.1f", elapsedMillis / 1000.0)).append("s");
+            sb.append(String.format(" (%.1f classes/s, %.1f KB/s)", getClassesPerSecond(), getBytesPerSecond() / 1024));
+            sb.append(", ").append(failedMethods).append(" failed / ").append(recoveredMethods).append(" recovered methods");
+            sb.append(", overload cache ").append(overloadCacheHits).append(" hits / ").append(overloadCacheMisses).append(" misses");
+            sb.append(", heap high water ").append(heapHighWater / (1024 * 1024)).append("MB");
+            if (!slowest.isEmpty()) {
+                sb.append(", slowest ");
+                boolean first = true;
+                for (String s : slowest) {
+                    if (!first) sb.append(", ");
+                    first = false;
+                    sb.append(s);
+                }
+            }
+            return sb.toString();
+        }
+    }
+}
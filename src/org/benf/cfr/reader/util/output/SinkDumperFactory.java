@@ -7,6 +7,7 @@ import org.benf.cfr.reader.bytecode.analysis.types.ClassNameUtils;
 import org.benf.cfr.reader.bytecode.analysis.types.JavaTypeInstance;
 import org.benf.cfr.reader.state.TypeUsageInformation;
 import org.benf.cfr.reader.util.getopt.Options;
+import org.benf.cfr.reader.util.getopt.OptionsImpl;
 import org.benf.cfr.reader.util.output.MethodErrorCollector.SummaryDumperMethodErrorCollector;
 
 import java.util.Arrays;
@@ -18,6 +19,7 @@ public class SinkDumperFactory implements DumperFactory {
     private final OutputSinkFactory sinkFactory;
     private Options options;
     private final int version;
+    private ProgressDumper progressDumper;
 
     public SinkDumperFactory(OutputSinkFactory sinkFactory, Options options) {
         this.sinkFactory = sinkFactory;
@@ -29,6 +31,7 @@ public class SinkDumperFactory implements DumperFactory {
         this.sinkFactory = other.sinkFactory;
         this.options = other.options;
         this.version = version;
+        this.progressDumper = other.progressDumper;
     }
 
     @Override
@@ -142,14 +145,29 @@ public class SinkDumperFactory implements DumperFactory {
         };
     }
 
+    /*
+     * Made once, as a metrics dumper aggregates over the whole path.
+     */
     @Override
     public ProgressDumper getProgressDumper() {
-        List<OutputSinkFactory.SinkClass> supported = sinkFactory.getSupportedSinks(OutputSinkFactory.SinkType.PROGRESS, justString);
+        if (progressDumper == null) {
+            progressDumper = mkProgressDumper();
+        }
+        return progressDumper;
+    }
+
+    private ProgressDumper mkProgressDumper() {
+        List<OutputSinkFactory.SinkClass> supported = sinkFactory.getSupportedSinks(OutputSinkFactory.SinkType.PROGRESS, Arrays.asList(OutputSinkFactory.SinkClass.PROGRESS_METRICS, OutputSinkFactory.SinkClass.STRING));
         if (supported == null) supported = justString;
         for (OutputSinkFactory.SinkClass sinkClass : supported) {
             switch (sinkClass) {
                 case STRING:
                     return new SinkProgressDumper(sinkFactory.<String>getSink(OutputSinkFactory.SinkType.PROGRESS, sinkClass));
+                case PROGRESS_METRICS: {
+                    OutputSinkFactory.Sink<SinkReturns.ProgressMetrics> sink = sinkFactory.getSink(OutputSinkFactory.SinkType.PROGRESS, sinkClass);
+                    if (sink == null) return ProgressDumperNop.INSTANCE;
+                    return new ProgressDumperThroughput(sink, options.getOption(OptionsImpl.PROGRESS_INTERVAL));
+                }
                 default:
                     continue;
             }
@@ -159,7 +177,6 @@ public class SinkDumperFactory implements DumperFactory {
             stringSink = new NopStringSink();
         }
         return new SinkProgressDumper(stringSink);
-
     }
 
     @Override
@@ -224,6 +241,14 @@ public class SinkDumperFactory implements DumperFactory {
         public void analysingPath(String path) {
             progressSink.write("Analysing path " + path);
         }
+
+        @Override
+        public void analysedType(JavaTypeInstance type, long nanos, long bytes, int failedMethods, int recoveredMethods, long overloadCacheHits, long overloadCacheMisses) {
+        }
+
+        @Override
+        public void analysedPath(String path) {
+        }
     }
 
     private static class SinkStringExceptionDumper implements ExceptionDumper {
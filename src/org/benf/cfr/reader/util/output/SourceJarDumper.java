@@ -0,0 +1,50 @@
+package org.benf.cfr.reader.util.output;
+
+import org.benf.cfr.reader.bytecode.analysis.types.ClassNameUtils;
+import org.benf.cfr.reader.bytecode.analysis.types.JavaTypeInstance;
+import org.benf.cfr.reader.entities.Method;
+import org.benf.cfr.reader.state.TypeUsageInformation;
+import org.benf.cfr.reader.util.getopt.Options;
+
+/*
+ * FileDumper, but the file is an entry in a sources jar.
+ */
+public class SourceJarDumper extends StreamDumper {
+    private final JavaTypeInstance type;
+    private final SummaryDumper summaryDumper;
+    private final SourceJarWriter jar;
+    private final String entryName;
+    private final StringBuilder sb = new StringBuilder();
+
+    SourceJarDumper(SourceJarWriter jar, String prefix, JavaTypeInstance type, SummaryDumper summaryDumper, TypeUsageInformation typeUsageInformation, Options options, IllegalIdentifierDump illegalIdentifierDump) {
+        super(typeUsageInformation, options, illegalIdentifierDump, new MovableDumperContext());
+        this.type = type;
+        this.summaryDumper = summaryDumper;
+        this.jar = jar;
+        this.entryName = prefix + FileDumper.mkRelativeFilename(ClassNameUtils.getPackageAndClassNames(type), "/", summaryDumper);
+    }
+
+    @Override
+    public void close() {
+        jar.add(entryName, sb.toString());
+    }
+
+    @Override
+    protected void write(String s) {
+        sb.append(s);
+    }
+
+    public String getEntryName() {
+        return entryName;
+    }
+
+    @Override
+    public void addSummaryError(Method method, String s) {
+        summaryDumper.notifyError(type, method, s);
+    }
+
+    @Override
+    public Dumper withTypeUsageInformation(TypeUsageInformation innerclassTypeUsageInformation) {
+        return new TypeOverridingDumper(this, innerclassTypeUsageInformation);
+    }
+}
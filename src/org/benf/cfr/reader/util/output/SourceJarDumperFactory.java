@@ -0,0 +1,79 @@
+package org.benf.cfr.reader.util.output;
+
+import org.benf.cfr.reader.bytecode.analysis.types.JavaTypeInstance;
+import org.benf.cfr.reader.state.TypeUsageInformation;
+import org.benf.cfr.reader.util.getopt.Options;
+import org.benf.cfr.reader.util.getopt.OptionsImpl;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.StringWriter;
+
+/*
+ * Equivalent of InternalDumperFactoryImpl writing to an output directory, but everything (including the summary)
+ * goes into a single sources jar.  The jar is shared between the inputs of a run, and written once they're done.
+ *
+ * Zip entry names are case sensitive, so we don't need to worry about case clashes.
+ */
+public class SourceJarDumperFactory implements DumperFactory {
+    private static final String SUMMARY = "summary.txt";
+
+    private final SourceJarWriter jar;
+    private final Options options;
+    private final ProgressDumper progressDumper;
+    private final String prefix;
+
+    public SourceJarDumperFactory(SourceJarWriter jar, Options options) {
+        this.jar = jar;
+        this.options = options;
+        if (options.getOption(OptionsImpl.SILENT)) {
+            this.progressDumper = ProgressDumperNop.INSTANCE;
+        } else if (options.optionIsSet(OptionsImpl.PROGRESS_INTERVAL)) {
+            this.progressDumper = ProgressDumperThroughput.toStdErr(options.getOption(OptionsImpl.PROGRESS_INTERVAL));
+        } else {
+            this.progressDumper = new ProgressDumperStdErr();
+        }
+        this.prefix = "";
+    }
+
+    private SourceJarDumperFactory(SourceJarDumperFactory other, String prefix) {
+        this.jar = other.jar;
+        this.options = other.options;
+        this.progressDumper = other.progressDumper;
+        this.prefix = prefix;
+    }
+
+    @Override
+    public DumperFactory getFactoryWithPrefix(String prefix, int version) {
+        // Prefixes are given as directories, "/META-INF/versions/9/".
+        while (prefix.startsWith("/")) prefix = prefix.substring(1);
+        return new SourceJarDumperFactory(this, prefix);
+    }
+
+    @Override
+    public Dumper getNewTopLevelDumper(JavaTypeInstance classType, SummaryDumper summaryDumper, TypeUsageInformation typeUsageInformation, IllegalIdentifierDump illegalIdentifierDump) {
+        return new SourceJarDumper(jar, prefix, classType, summaryDumper, typeUsageInformation, options, illegalIdentifierDump);
+    }
+
+    @Override
+    public ProgressDumper getProgressDumper() {
+        return progressDumper;
+    }
+
+    @Override
+    public SummaryDumper getSummaryDumper() {
+        final StringWriter summary = new StringWriter();
+        return new FileSummaryDumper(new BufferedWriter(summary) {
+            @Override
+            public void close() throws IOException {
+                super.close();
+                jar.add(SUMMARY, summary.toString());
+            }
+        }, options, null);
+    }
+
+    @Override
+    public ExceptionDumper getExceptionDumper() {
+        return new StdErrExceptionDumper();
+    }
+}
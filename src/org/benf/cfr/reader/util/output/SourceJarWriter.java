@@ -0,0 +1,292 @@
+package org.benf.cfr.reader.util.output;
+
+import org.benf.cfr.reader.util.Troolean;
+import org.benf.cfr.reader.util.collections.ListFactory;
+import org.benf.cfr.reader.util.collections.MapFactory;
+import org.benf.cfr.reader.util.collections.SetFactory;
+import org.benf.cfr.reader.util.getopt.Options;
+import org.benf.cfr.reader.util.getopt.OptionsImpl;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/*
+ * Collects decompiled sources into a single zip (sources jar), rather than a file per class.
+ *
+ * Entries are compressed on worker threads as they're added, and written out (in the order they were added) as
+ * soon as they're ready - only a few are ever waiting, so we don't hold the whole jar in memory.  Just the central
+ * directory is kept until we're closed.  Every entry has a fixed timestamp, so the same input always gives the
+ * same bytes, however the work was scheduled.  ZipOutputStream won't take data which is already compressed, so
+ * we write the (simple) zip structure ourselves.
+ *
+ * If the same name is added twice, the later one wins - as it would if we were overwriting files.  (The earlier
+ * data is still in the file, but nothing refers to it.)
+ *
+ * No zip64, so there's a limit of 65535 entries, and 4GB - we fail as soon as we'd go over either.
+ */
+public class SourceJarWriter {
+    private static final int MAX_ENTRIES = 0xffff;
+    private static final long MAX_SIZE = 0xffffffffL;
+    // 1980-01-01 00:00, the earliest a zip can say.
+    private static final int DOS_TIME = 0;
+    private static final int DOS_DATE = (1 << 5) | 1;
+    private static final int FLAG_UTF8_NAMES = 0x0800;
+
+    private final File file;
+    private final OutputStream os;
+    private final ExecutorService compressors;
+    private final int maxPending;
+    private final LinkedList<Pending> pending = ListFactory.newLinkedList();
+    // Central directory record for each name.
+    private final Map<String, byte[]> central = MapFactory.newTreeMap();
+    private long offset = 0;
+    private boolean closed = false;
+
+    private SourceJarWriter(File file, OutputStream os) {
+        this.file = file;
+        this.os = os;
+        int threads = Math.max(1, Runtime.getRuntime().availableProcessors());
+        this.maxPending = threads * 2;
+        this.compressors = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "CFR source jar compression");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /*
+     * Null if we've not been asked to write a sources jar.
+     */
+    public static SourceJarWriter create(Options options) {
+        String path = options.getOption(OptionsImpl.OUTPUT_JAR);
+        if (path == null) return null;
+        if (options.optionIsSet(OptionsImpl.OUTPUT_DIR) || options.optionIsSet(OptionsImpl.OUTPUT_PATH)) {
+            throw new IllegalArgumentException("Option '" + OptionsImpl.OUTPUT_JAR.getName() + "' can't be used with '" +
+                    OptionsImpl.OUTPUT_DIR.getName() + "' or '" + OptionsImpl.OUTPUT_PATH.getName() + "'");
+        }
+        File file = new File(path);
+        Troolean clobber = options.getOption(OptionsImpl.CLOBBER_FILES);
+        if (file.exists() && !clobber.boolValue(true)) {
+            throw new Dumper.CannotCreate("File already exists, and option '" + OptionsImpl.CLOBBER_FILES.getName() + "' not set");
+        }
+        File parent = file.getAbsoluteFile().getParentFile();
+        if (parent != null && !parent.exists() && !parent.mkdirs()) {
+            throw new Dumper.CannotCreate("Couldn't create dir: " + parent);
+        }
+        try {
+            return new SourceJarWriter(file, new BufferedOutputStream(new FileOutputStream(file)));
+        } catch (IOException e) {
+            throw new Dumper.CannotCreate(e);
+        }
+    }
+
+    /*
+     * nb: sources are encoded as FileDumper would write them, so an unzipped jar matches outputdir.
+     */
+    public void add(String name, String content) {
+        final byte[] data = content.getBytes(Charset.defaultCharset());
+        synchronized (this) {
+            if (closed) throw new IllegalStateException("Source jar " + file + " already written");
+            if (!central.containsKey(name) && central.size() + countNew(name) > MAX_ENTRIES) {
+                throw new IllegalStateException("Too many classes (more than " + MAX_ENTRIES + ") for a sources jar");
+            }
+            Future<Entry> entry = compressors.submit(new Callable<Entry>() {
+                @Override
+                public Entry call() {
+                    return Entry.compress(data);
+                }
+            });
+            pending.add(new Pending(name, entry));
+            try {
+                writeReady(maxPending);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    /*
+     * Names still being compressed which we haven't written yet count too.
+     */
+    private int countNew(String name) {
+        Set<String> waiting = SetFactory.newSet();
+        for (Pending p : pending) {
+            if (!central.containsKey(p.name)) waiting.add(p.name);
+        }
+        waiting.add(name);
+        return waiting.size();
+    }
+
+    /*
+     * Write everything which has been compressed, in order - and wait for enough that no more than maxWaiting
+     * are left.
+     */
+    private void writeReady(int maxWaiting) throws IOException {
+        while (!pending.isEmpty()) {
+            Pending next = pending.getFirst();
+            if (pending.size() <= maxWaiting && !next.entry.isDone()) return;
+            pending.removeFirst();
+            Entry entry;
+            try {
+                entry = next.entry.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            } catch (ExecutionException e) {
+                throw new IllegalStateException(e.getCause());
+            }
+            writeEntry(next.name, entry);
+        }
+    }
+
+    private void writeEntry(String entryName, Entry entry) throws IOException {
+        byte[] name = entryName.getBytes("UTF-8");
+        long size = 30 + name.length + entry.compressed.length;
+        if (offset + size > MAX_SIZE) {
+            throw new IllegalStateException("Sources jar too large");
+        }
+        writeInt(os, 0x04034b50);
+        writeShort(os, 20);
+        writeEntryInfo(os, entry, name);
+        writeShort(os, 0);
+        os.write(name);
+        os.write(entry.compressed);
+
+        ByteArrayOutputStream record = new ByteArrayOutputStream(46 + name.length);
+        writeInt(record, 0x02014b50);
+        writeShort(record, 20);
+        writeShort(record, 20);
+        writeEntryInfo(record, entry, name);
+        writeShort(record, 0);
+        writeShort(record, 0);
+        writeShort(record, 0);
+        writeShort(record, 0);
+        writeInt(record, 0);
+        writeInt(record, (int) offset);
+        record.write(name);
+        central.put(entryName, record.toByteArray());
+
+        offset += size;
+    }
+
+    public synchronized void close() {
+        if (closed) return;
+        closed = true;
+        try {
+            try {
+                writeReady(0);
+                writeCentralDirectory();
+            } finally {
+                os.close();
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        } finally {
+            compressors.shutdownNow();
+        }
+    }
+
+    private void writeCentralDirectory() throws IOException {
+        long centralSize = 0;
+        for (byte[] record : central.values()) {
+            os.write(record);
+            centralSize += record.length;
+        }
+        if (offset + centralSize > MAX_SIZE) {
+            throw new IllegalStateException("Sources jar too large");
+        }
+        writeInt(os, 0x06054b50);
+        writeShort(os, 0);
+        writeShort(os, 0);
+        writeShort(os, central.size());
+        writeShort(os, central.size());
+        writeInt(os, (int) centralSize);
+        writeInt(os, (int) offset);
+        writeShort(os, 0);
+    }
+
+    /*
+     * The part of the header which is common to local and central entries.
+     */
+    private static void writeEntryInfo(OutputStream os, Entry entry, byte[] name) throws IOException {
+        writeShort(os, FLAG_UTF8_NAMES);
+        writeShort(os, 8);
+        writeShort(os, DOS_TIME);
+        writeShort(os, DOS_DATE);
+        writeInt(os, (int) entry.crc);
+        writeInt(os, entry.compressed.length);
+        writeInt(os, entry.size);
+        writeShort(os, name.length);
+    }
+
+    private static void writeShort(OutputStream os, int value) throws IOException {
+        os.write(value & 0xff);
+        os.write((value >>> 8) & 0xff);
+    }
+
+    private static void writeInt(OutputStream os, int value) throws IOException {
+        writeShort(os, value & 0xffff);
+        writeShort(os, (value >>> 16) & 0xffff);
+    }
+
+    private static class Pending {
+        private final String name;
+        private final Future<Entry> entry;
+
+        private Pending(String name, Future<Entry> entry) {
+            this.name = name;
+            this.entry = entry;
+        }
+    }
+
+    private static class Entry {
+        private final int size;
+        private final long crc;
+        private final byte[] compressed;
+
+        private Entry(int size, long crc, byte[] compressed) {
+            this.size = size;
+            this.crc = crc;
+            this.compressed = compressed;
+        }
+
+        private static Entry compress(byte[] data) {
+            CRC32 crc = new CRC32();
+            crc.update(data);
+            // Zip entries are raw deflate, without the zlib wrapper.
+            Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+            try {
+                deflater.setInput(data);
+                deflater.finish();
+                ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 4 + 64);
+                byte[] buffer = new byte[8192];
+                while (!deflater.finished()) {
+                    int len = deflater.deflate(buffer);
+                    out.write(buffer, 0, len);
+                }
+                return new Entry(data.length, crc.getValue(), out.toByteArray());
+            } finally {
+                deflater.end();
+            }
+        }
+    }
+}